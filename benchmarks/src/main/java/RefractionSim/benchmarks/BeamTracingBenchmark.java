@@ -0,0 +1,110 @@
+package RefractionSim.benchmarks;
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import RefractionSim.Beam;
+import RefractionSim.Mesh;
+import RefractionSim.RayBox;
+import RefractionSim.Target;
+import RefractionSim.Vector;
+
+/**
+ * Class for measuring how quickly beams are traced through the target for every primitive shape and for very detailed spheres. Each benchmark operation traces the same seeded set of beams from ray boxes scattered around the target, and the number of rays traced and the number of times they meet a surface of the target are reported as rays per second and bounces per second alongside the operations per second.
+ * Run with: java -jar benchmarks/target/benchmarks.jar BeamTracingBenchmark -prof gc -rf json -rff beams.json (the GC profiler adds the allocation rate and bytes allocated per operation)
+ * @author William Platt
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xms512m", "-Xmx512m"})
+public class BeamTracingBenchmark {
+	
+	private static final long SEED = 20150401; // Every run traces exactly the same beams
+	private static final int NUM_OF_BEAMS = 64;
+	private static final int TARGET_MATERIAL = 2; // Glass, as in the viewport's starting scene
+	private static final int WORLD_MATERIAL = 0; // Air
+	
+	// The primitive shapes by name, then spheres with the given numbers of segments and rings (the most detailed primitive sphere is 46x47)
+	@Param({"CUBE", "CUBOID", "TRIANGULAR_PRISM", "SPHERE", "CONVEX_LENS", "CONCAVE_LENS", "HALF_CYLINDER", "SPHERE_128x127", "SPHERE_256x255"})
+	public String shape;
+	
+	private Target target;
+	private Beam[] beams = new Beam[NUM_OF_BEAMS];
+	
+	/**
+	 * Class for the extra results reported by the benchmark, which JMH divides by the time taken to give rates
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+		
+		public long rays; // Number of beams traced
+		public long bounces; // Number of times a beam met a surface of the target
+		
+		/**
+		 * Resets the counters at the start of each iteration
+		 */
+		@Setup(Level.Iteration)
+		public void reset() {
+			rays = 0;
+			bounces = 0;
+		}
+		
+	}
+	
+	/**
+	 * Creates the target and places the ray boxes using a fixed seed so that every run traces the same beams
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		Color color = new Color(50, 200, 100, 100);
+		if (shape.startsWith("SPHERE_")) {
+			String[] size = shape.substring("SPHERE_".length()).split("x");
+			target = new Target(new Mesh(Integer.parseInt(size[0]), Integer.parseInt(size[1])), shape, color, TARGET_MATERIAL);
+		} else {
+			target = new Target(Mesh.Primitive.valueOf(shape), color, TARGET_MATERIAL);
+		}
+		Random random = new Random(SEED);
+		for (int i = 0; i < NUM_OF_BEAMS; i++) {
+			RayBox rayBox = new RayBox((random.nextDouble() - 0.5) * 2 * Math.PI);
+			rayBox.orbitAboutOrigin(0, (random.nextDouble() - 0.5) * Math.PI * 2 / 3); // Up to 60 degrees above or below the target
+			// Move the ray box sideways so that beams hit the target off-centre, where they are refracted and reflected the most
+			Vector offset = new Vector(3);
+			offset.setElements(new double[] {random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5});
+			rayBox.setOrigin(rayBox.getOrigin().add(offset));
+			beams[i] = rayBox.getLightBeam();
+		}
+	}
+	
+	/**
+	 * Traces every beam through the target once
+	 * @param counters the counters for the number of rays and bounces
+	 */
+	@Benchmark
+	public void traceBeams(Counters counters) {
+		for (int i = 0; i < NUM_OF_BEAMS; i++) {
+			beams[i].calculateRays(target, WORLD_MATERIAL);
+			counters.rays++;
+			counters.bounces += beams[i].getNumOfPoints() - 2; // Every point but the ray box and the end of the beam is a bounce
+		}
+	}
+	
+}
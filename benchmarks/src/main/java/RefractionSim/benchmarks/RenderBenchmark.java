@@ -0,0 +1,89 @@
+package RefractionSim.benchmarks;
+import java.awt.Color;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import RefractionSim.Mesh;
+import RefractionSim.OffscreenRenderer;
+import RefractionSim.RayBox;
+import RefractionSim.RenderedFrame;
+import RefractionSim.Renderer;
+import RefractionSim.SceneSnapshot;
+
+/**
+ * Class for measuring how long the renderer takes to render one frame of the viewport's scene at different resolutions and levels of scene complexity. The scene is built the same way every time (ray boxes are spread evenly around the target rather than placed randomly) and the beams are traced once before measuring, so only the render path is timed and results from different machines or commits can be compared.
+ * Run with: java -jar benchmarks/target/benchmarks.jar RenderBenchmark -rf json -rff render.json
+ * @author William Platt
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xms512m", "-Xmx512m"}) // A fixed heap size stops the heap being resized part way through a measurement
+public class RenderBenchmark {
+	
+	@Param({"640x480", "1280x720", "1920x1080"})
+	public String resolution;
+	
+	@Param({"CUBE", "SPHERE", "CONCAVE_LENS"})
+	public String shape;
+	
+	@Param({"1", "10", "50"})
+	public int rayBoxes;
+	
+	@Param({"false", "true"})
+	public boolean orthographic;
+	
+	private Renderer renderer;
+	private RenderedFrame frame;
+	private SceneSnapshot snapshot;
+	
+	/**
+	 * Builds the scene, traces the beams and allocates the renderer and frame before any frames are timed
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		String[] size = resolution.split("x");
+		int width = Integer.parseInt(size[0]);
+		int height = Integer.parseInt(size[1]);
+		OffscreenRenderer scene = new OffscreenRenderer(Color.BLACK);
+		scene.setTargetShape(Mesh.Primitive.valueOf(shape));
+		scene.setOrthographic(orthographic);
+		scene.orbitCamera(Math.toRadians(30), Math.toRadians(20)); // Look down on the scene at an angle so that the ray boxes and beams overlap each other and the target
+		for (int i = 0; i < rayBoxes; i++) {
+			RayBox rayBox = new RayBox(2 * Math.PI * i / rayBoxes);
+			rayBox.orbitAboutOrigin(0, Math.toRadians((i % 5) * 6 - 12)); // Spread the ray boxes out vertically too so that not every beam is in the same plane
+			rayBox.setAnglesVisible(true);
+			scene.addRayBox(rayBox);
+		}
+		scene.updateBeams();
+		snapshot = scene.getSnapshot();
+		renderer = new Renderer(width, height, Color.BLACK);
+		frame = new RenderedFrame(width, height);
+	}
+	
+	/**
+	 * Renders one frame of the scene at one sample per pixel
+	 * @return the rendered frame, so that the rendering can't be optimised away
+	 */
+	@Benchmark
+	public RenderedFrame renderFrame() {
+		renderer.render(snapshot, frame, 1);
+		return frame;
+	}
+	
+}
@@ -0,0 +1,292 @@
+package RefractionSim.jfr;
+import RefractionSim.Profiler;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Class for the profiler that records the stages of rendering and tracing as Java Flight Recorder events. It is loaded by Profiling.getProfiler() when this module's JAR file is on the class path, and events are only created while a recording has them enabled
+ * @author William Platt
+ *
+ */
+public class FlightRecorderProfiler implements Profiler {
+	
+	private static final EventType FRAME_TYPE = EventType.getEventType(FrameEvent.class);
+	private static final EventType RASTERISE_TYPE = EventType.getEventType(RasteriseEvent.class);
+	private static final EventType BEAM_UPDATE_TYPE = EventType.getEventType(BeamUpdateEvent.class);
+	private static final EventType RAY_CALCULATION_TYPE = EventType.getEventType(RayCalculationEvent.class);
+	private static final EventType MESH_TYPE = EventType.getEventType(MeshEvent.class);
+	
+	/**
+	 * Class for events recording the rendering of a frame
+	 */
+	@Name("RefractionSim.Frame")
+	@Label("Frame")
+	@Category({"Refraction Simulator", "Rendering"})
+	@Description("Rendering of a frame, including its outline and labels")
+	static class FrameEvent extends Event {
+		
+		@Label("Width")
+		int width;
+		
+		@Label("Height")
+		int height;
+		
+		@Label("Render Scale")
+		@Description("Samples along each axis per pixel")
+		double renderScale;
+		
+		@Label("Triangles Submitted")
+		int trianglesSubmitted;
+		
+		@Label("Triangles Culled")
+		@Description("Triangles rejected before rasterisation")
+		int trianglesCulled;
+		
+		@Label("Pixels Shaded")
+		@Description("Samples written to the frame buffer")
+		long pixelsShaded;
+		
+	}
+	
+	/**
+	 * Class for events recording the transformation and rasterisation of the faces of an object
+	 */
+	@Name("RefractionSim.Rasterise")
+	@Label("Rasterise Object")
+	@Category({"Refraction Simulator", "Rendering"})
+	@Description("Transformation and rasterisation of the faces of an object")
+	static class RasteriseEvent extends Event {
+		
+		@Label("Object ID")
+		int objectID;
+		
+		@Label("Faces")
+		int faces;
+		
+	}
+	
+	/**
+	 * Class for events recording the recalculation of a beam's path and geometry
+	 */
+	@Name("RefractionSim.BeamUpdate")
+	@Label("Beam Update")
+	@Category({"Refraction Simulator", "Tracing"})
+	@Description("Recalculation of a beam's path and regeneration of its geometry")
+	static class BeamUpdateEvent extends Event {
+		
+		@Label("Beam ID")
+		int beamID;
+		
+		@Label("Bounces")
+		int bounces;
+		
+	}
+	
+	/**
+	 * Class for events recording the tracing of a beam's path through the target
+	 */
+	@Name("RefractionSim.RayCalculation")
+	@Label("Ray Calculation")
+	@Category({"Refraction Simulator", "Tracing"})
+	@Description("Tracing of a beam's path through the target")
+	static class RayCalculationEvent extends Event {
+		
+		@Label("Beam ID")
+		int beamID;
+		
+		@Label("Bounces")
+		int bounces;
+		
+		@Label("Target Faces")
+		@Description("Faces of the target, each of which is tested against every ray")
+		int targetFaces;
+		
+	}
+	
+	/**
+	 * Class for events recording the construction of a mesh
+	 */
+	@Name("RefractionSim.Mesh")
+	@Label("Mesh Construction")
+	@Category({"Refraction Simulator", "Geometry"})
+	@Description("Generation of the geometry of one level of detail of a mesh")
+	static class MeshEvent extends Event {
+		
+		@Label("Shape")
+		String shape;
+		
+		@Label("Level of Detail")
+		int level;
+		
+		@Label("Faces")
+		int faces;
+		
+		@Label("Vertices")
+		int verts;
+		
+	}
+	
+	/**
+	 * Starts recording a frame if frame events are enabled
+	 * @return the event being recorded; null if frame events aren't enabled
+	 */
+	public Object beginFrame() {
+		if (!FRAME_TYPE.isEnabled()) {
+			return null;
+		} else {
+			FrameEvent event = new FrameEvent();
+			event.begin();
+			return event;
+		}
+	}
+	
+	/**
+	 * Commits a frame event
+	 * @param event the value returned by beginFrame()
+	 * @param width the width of the frame in pixels
+	 * @param height the height of the frame in pixels
+	 * @param renderScale the number of samples along each axis per pixel
+	 * @param trianglesSubmitted the number of triangles of the objects that were rendered
+	 * @param trianglesCulled the number of triangles rejected before rasterisation
+	 * @param pixelsShaded the number of samples written to the frame buffer
+	 */
+	public void endFrame(Object event, int width, int height, double renderScale, int trianglesSubmitted, int trianglesCulled, long pixelsShaded) {
+		if (event != null) {
+			FrameEvent frameEvent = (FrameEvent)event;
+			frameEvent.width = width;
+			frameEvent.height = height;
+			frameEvent.renderScale = renderScale;
+			frameEvent.trianglesSubmitted = trianglesSubmitted;
+			frameEvent.trianglesCulled = trianglesCulled;
+			frameEvent.pixelsShaded = pixelsShaded;
+			frameEvent.commit();
+		}
+	}
+	
+	/**
+	 * Starts recording the rasterisation of an object if rasterisation events are enabled
+	 * @return the event being recorded; null if rasterisation events aren't enabled
+	 */
+	public Object beginRasterise() {
+		if (!RASTERISE_TYPE.isEnabled()) {
+			return null;
+		} else {
+			RasteriseEvent event = new RasteriseEvent();
+			event.begin();
+			return event;
+		}
+	}
+	
+	/**
+	 * Commits a rasterisation event
+	 * @param event the value returned by beginRasterise()
+	 * @param objectID the ID of the object
+	 * @param faces the number of faces of the level of detail that was rasterised
+	 */
+	public void endRasterise(Object event, int objectID, int faces) {
+		if (event != null) {
+			RasteriseEvent rasteriseEvent = (RasteriseEvent)event;
+			rasteriseEvent.objectID = objectID;
+			rasteriseEvent.faces = faces;
+			rasteriseEvent.commit();
+		}
+	}
+	
+	/**
+	 * Starts recording a beam update if beam update events are enabled
+	 * @return the event being recorded; null if beam update events aren't enabled
+	 */
+	public Object beginBeamUpdate() {
+		if (!BEAM_UPDATE_TYPE.isEnabled()) {
+			return null;
+		} else {
+			BeamUpdateEvent event = new BeamUpdateEvent();
+			event.begin();
+			return event;
+		}
+	}
+	
+	/**
+	 * Commits a beam update event
+	 * @param event the value returned by beginBeamUpdate()
+	 * @param beamID the ID of the beam
+	 * @param bounces the number of times the beam meets a surface of the target
+	 */
+	public void endBeamUpdate(Object event, int beamID, int bounces) {
+		if (event != null) {
+			BeamUpdateEvent updateEvent = (BeamUpdateEvent)event;
+			updateEvent.beamID = beamID;
+			updateEvent.bounces = bounces;
+			updateEvent.commit();
+		}
+	}
+	
+	/**
+	 * Starts recording the tracing of a beam if ray calculation events are enabled
+	 * @return the event being recorded; null if ray calculation events aren't enabled
+	 */
+	public Object beginRayCalculation() {
+		if (!RAY_CALCULATION_TYPE.isEnabled()) {
+			return null;
+		} else {
+			RayCalculationEvent event = new RayCalculationEvent();
+			event.begin();
+			return event;
+		}
+	}
+	
+	/**
+	 * Commits a ray calculation event
+	 * @param event the value returned by beginRayCalculation()
+	 * @param beamID the ID of the beam
+	 * @param bounces the number of times the beam meets a surface of the target
+	 * @param targetFaces the number of faces of the target
+	 */
+	public void endRayCalculation(Object event, int beamID, int bounces, int targetFaces) {
+		if (event != null) {
+			RayCalculationEvent rayEvent = (RayCalculationEvent)event;
+			rayEvent.beamID = beamID;
+			rayEvent.bounces = bounces;
+			rayEvent.targetFaces = targetFaces;
+			rayEvent.commit();
+		}
+	}
+	
+	/**
+	 * Starts recording the construction of a mesh if mesh events are enabled
+	 * @return the event being recorded; null if mesh events aren't enabled
+	 */
+	public Object beginMesh() {
+		if (!MESH_TYPE.isEnabled()) {
+			return null;
+		} else {
+			MeshEvent event = new MeshEvent();
+			event.begin();
+			return event;
+		}
+	}
+	
+	/**
+	 * Commits a mesh event
+	 * @param event the value returned by beginMesh()
+	 * @param shape the name of the shape; null if the mesh isn't a primitive shape
+	 * @param level the level of detail, where 0 is the most detailed
+	 * @param faces the number of faces of the mesh
+	 * @param verts the number of vertices of the mesh
+	 */
+	public void endMesh(Object event, String shape, int level, int faces, int verts) {
+		if (event != null) {
+			MeshEvent meshEvent = (MeshEvent)event;
+			meshEvent.shape = shape;
+			meshEvent.level = level;
+			meshEvent.faces = faces;
+			meshEvent.verts = verts;
+			meshEvent.commit();
+		}
+	}
+	
+}
@@ -0,0 +1,281 @@
+package RefractionSim;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Class for rendering animations in which one property of a scene, such as the heading of a ray box, changes from frame to frame. Frames are rendered in parallel and written in order to a sequence of PNG files or an animated GIF.
+ * An animation file is a scene file (see BatchRenderer) with the following extra keys:
+ * animation.parameter (the scene key to animate, such as raybox.1.heading, raybox.1.pitch, target.material, world.material, camera.heading, camera.pitch or camera.distance),
+ * animation.frames (the number of frames),
+ * animation.keyframes (comma-separated frame:value pairs such as "0:10, 59:70"; values between keyframes are interpolated linearly and held before the first and after the last keyframe),
+ * animation.output (the GIF file, or the PNG file names with a printf-style frame number such as frames/sweep-%03d.png; relative to the animation file),
+ * animation.delay (milliseconds between GIF frames; 40 by default)
+ * Each frame is built from the animation file alone, so exporting the same file again gives exactly the same frames
+ * @author William Platt
+ *
+ */
+public class AnimationExporter {
+	
+	private Properties scene;
+	private String parameter;
+	private int numOfFrames;
+	private int[] keyframes; // Frame numbers of the keyframes in ascending order
+	private double[] keyValues; // Value of the parameter at each keyframe
+	private int width;
+	private int height;
+	private double renderScale;
+	
+	/**
+	 * Constructor for the AnimationExporter class which reads the animation settings from the properties of an animation file
+	 * @param scene the properties of the animation file
+	 * @throws IllegalArgumentException if an animation setting is missing or invalid
+	 */
+	public AnimationExporter(Properties scene) {
+		this.scene = scene;
+		this.parameter = scene.getProperty("animation.parameter");
+		if (parameter == null) {
+			throw new IllegalArgumentException("The animation must have a parameter to animate");
+		}
+		this.numOfFrames = Integer.parseInt(scene.getProperty("animation.frames", "0"));
+		if (numOfFrames <= 0) {
+			throw new IllegalArgumentException("The animation must have at least 1 frame");
+		}
+		String[] pairs = scene.getProperty("animation.keyframes", "").split(",");
+		this.keyframes = new int[pairs.length];
+		this.keyValues = new double[pairs.length];
+		for (int i = 0; i < pairs.length; i++) {
+			String[] pair = pairs[i].trim().split(":");
+			if (pair.length != 2) {
+				throw new IllegalArgumentException("Keyframes must be written as frame:value pairs");
+			}
+			keyframes[i] = Integer.parseInt(pair[0].trim());
+			keyValues[i] = Double.parseDouble(pair[1].trim());
+			if ((i > 0) && (keyframes[i] <= keyframes[i - 1])) {
+				throw new IllegalArgumentException("Keyframes must be in ascending order of frame number");
+			}
+		}
+		this.width = Integer.parseInt(scene.getProperty("width", "800"));
+		this.height = Integer.parseInt(scene.getProperty("height", "600"));
+		this.renderScale = Double.parseDouble(scene.getProperty("scale", "2"));
+	}
+	
+	/**
+	 * Returns the number of frames in the animation
+	 * @return the number of frames
+	 */
+	public int getNumOfFrames() {
+		return numOfFrames;
+	}
+	
+	/**
+	 * Works out the value of the animated parameter in a frame by interpolating between the keyframes either side of the frame
+	 * @param frame the frame number, starting from 0
+	 * @return the value of the parameter in that frame
+	 */
+	public double getValue(int frame) {
+		if (frame <= keyframes[0]) {
+			return keyValues[0];
+		}
+		for (int i = 1; i < keyframes.length; i++) {
+			if (frame <= keyframes[i]) {
+				double t = (double)(frame - keyframes[i - 1]) / (keyframes[i] - keyframes[i - 1]);
+				return keyValues[i - 1] + t * (keyValues[i] - keyValues[i - 1]);
+			}
+		}
+		return keyValues[keyframes.length - 1];
+	}
+	
+	/**
+	 * Renders one frame of the animation; this can be called on any thread because each frame has its own scene
+	 * @param frame the frame number, starting from 0
+	 * @return the rendered frame
+	 * @throws IllegalArgumentException if frame is not a frame of the animation or the scene has an invalid value
+	 */
+	public BufferedImage renderFrame(int frame) {
+		if ((frame < 0) || (frame >= numOfFrames)) {
+			throw new IllegalArgumentException("There is no frame " + frame);
+		} else {
+			Properties frameScene = new Properties();
+			frameScene.putAll(scene);
+			double value = getValue(frame);
+			if (parameter.endsWith("material") || parameter.endsWith("thickness")) { // These parameters are whole numbers, so step between values
+				frameScene.setProperty(parameter, String.valueOf(Math.round(value)));
+			} else {
+				frameScene.setProperty(parameter, String.valueOf(value));
+			}
+			return BatchRenderer.loadScene(frameScene).render(width, height, renderScale);
+		}
+	}
+	
+	/**
+	 * Renders every frame on a pool of threads and writes them in order. At most twice as many frames as there are threads are rendered or waiting to be written at any time, so long animations don't need much memory
+	 * @param outputFile the GIF file to write, or the name of the PNG files with a printf-style frame number
+	 * @param delay the number of milliseconds between GIF frames
+	 * @param numOfThreads the number of frames to render at the same time
+	 * @throws IOException if an image file can't be written
+	 * @throws IllegalArgumentException if numOfThreads is not positive
+	 */
+	public void export(File outputFile, int delay, int numOfThreads) throws IOException {
+		if (numOfThreads <= 0) {
+			throw new IllegalArgumentException("At least 1 thread is needed to render the animation");
+		}
+		boolean gif = outputFile.getName().toLowerCase().endsWith(".gif");
+		ImageWriter gifWriter = null;
+		ImageOutputStream gifStream = null;
+		if (gif) {
+			gifWriter = ImageIO.getImageWritersBySuffix("gif").next();
+			outputFile.delete(); // Otherwise the end of a longer old file would be left after the new one
+			gifStream = ImageIO.createImageOutputStream(outputFile);
+			gifWriter.setOutput(gifStream);
+			gifWriter.prepareWriteSequence(null);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(numOfThreads);
+		Deque<Future<BufferedImage>> inFlight = new ArrayDeque<Future<BufferedImage>>(); // Frames that have been submitted but not written, in order
+		int maxInFlight = 2 * numOfThreads; // Enough to keep every thread busy while the oldest frame is being written
+		int nextToWrite = 0;
+		try {
+			for (int i = 0; i < numOfFrames; i++) {
+				if (inFlight.size() == maxInFlight) {
+					writeFrame(inFlight.removeFirst(), nextToWrite, outputFile, gifWriter, delay);
+					nextToWrite++;
+				}
+				final int frame = i;
+				inFlight.addLast(pool.submit(new Callable<BufferedImage>() {
+					
+					/**
+					 * Renders one frame on a thread from the pool
+					 * @return the rendered frame
+					 */
+					public BufferedImage call() {
+						return renderFrame(frame);
+					}
+					
+				}));
+			}
+			while (!inFlight.isEmpty()) {
+				writeFrame(inFlight.removeFirst(), nextToWrite, outputFile, gifWriter, delay);
+				nextToWrite++;
+			}
+			if (gif) {
+				gifWriter.endWriteSequence();
+			}
+		} finally {
+			pool.shutdownNow(); // Stop rendering frames that will never be written if writing failed
+			if (gif) {
+				gifWriter.dispose();
+				gifStream.close();
+			}
+		}
+	}
+	
+	/**
+	 * Waits for a frame to finish rendering and writes it
+	 * @param result the frame being rendered
+	 * @param frame the frame number, starting from 0
+	 * @param outputFile the GIF file, or the name of the PNG files with a printf-style frame number
+	 * @param gifWriter the writer for the GIF file; null if PNG files are being written
+	 * @param delay the number of milliseconds between GIF frames
+	 * @throws IOException if the frame couldn't be rendered or written
+	 */
+	private void writeFrame(Future<BufferedImage> result, int frame, File outputFile, ImageWriter gifWriter, int delay) throws IOException {
+		BufferedImage image;
+		try {
+			image = result.get();
+		} catch (ExecutionException e) {
+			throw new IOException("Frame " + frame + " couldn't be rendered", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while rendering frame " + frame, e);
+		}
+		if (gifWriter == null) {
+			File frameFile = new File(outputFile.getParentFile(), String.format(outputFile.getName(), frame));
+			ImageIO.write(image, "png", frameFile);
+		} else {
+			ImageTypeSpecifier type = ImageTypeSpecifier.createFromRenderedImage(image);
+			IIOMetadata metadata = gifWriter.getDefaultImageMetadata(type, null);
+			String format = metadata.getNativeMetadataFormatName();
+			IIOMetadataNode root = (IIOMetadataNode)(metadata.getAsTree(format));
+			IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+			control.setAttribute("disposalMethod", "none");
+			control.setAttribute("userInputFlag", "FALSE");
+			control.setAttribute("transparentColorFlag", "FALSE");
+			control.setAttribute("delayTime", String.valueOf(delay / 10)); // GIF delays are in hundredths of a second
+			control.setAttribute("transparentColorIndex", "0");
+			root.appendChild(control);
+			if (frame == 0) { // The application extension makes the animation loop forever
+				IIOMetadataNode applications = new IIOMetadataNode("ApplicationExtensions");
+				IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+				loop.setAttribute("applicationID", "NETSCAPE");
+				loop.setAttribute("authenticationCode", "2.0");
+				loop.setUserObject(new byte[] {1, 0, 0}); // Sub-block 1 with a loop count of 0 (forever)
+				applications.appendChild(loop);
+				root.appendChild(applications);
+			}
+			metadata.setFromTree(format, root);
+			gifWriter.writeToSequence(new IIOImage(image, null, metadata), null);
+		}
+	}
+	
+	/**
+	 * Exports the animation described by an animation file. Usage: AnimationExporter [-threads n] animation-file
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true"); // There is no window, so don't require a display
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		File animationFile = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads") && (i + 1 < args.length)) {
+				numOfThreads = Integer.parseInt(args[i + 1]);
+				i++;
+			} else {
+				animationFile = new File(args[i]);
+			}
+		}
+		if ((animationFile == null) || (numOfThreads <= 0)) {
+			System.err.println("Usage: AnimationExporter [-threads n] animation-file");
+			System.exit(2);
+		}
+		try {
+			Properties scene = new Properties();
+			InputStream in = new FileInputStream(animationFile);
+			try {
+				scene.load(in);
+			} finally {
+				in.close();
+			}
+			AnimationExporter exporter = new AnimationExporter(scene);
+			String defaultName = animationFile.getName().replaceFirst("\\.[^.]*$", "") + ".gif";
+			File outputFile = new File(scene.getProperty("animation.output", defaultName));
+			if (!outputFile.isAbsolute()) {
+				outputFile = new File(animationFile.getAbsoluteFile().getParentFile(), outputFile.getPath());
+			}
+			int delay = Integer.parseInt(scene.getProperty("animation.delay", "40"));
+			long start = System.nanoTime();
+			exporter.export(outputFile, delay, numOfThreads);
+			System.out.println(exporter.getNumOfFrames() + " frames written to " + outputFile + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println(animationFile + ": " + e);
+			System.exit(1);
+		}
+	}
+	
+}
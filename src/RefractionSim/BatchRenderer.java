@@ -0,0 +1,173 @@
+package RefractionSim;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.imageio.ImageIO;
+
+/**
+ * Class for rendering scenes described in files to images from the command line without opening a window. Scenes are rendered in parallel, one scene per thread.
+ * Each scene file is a properties file with the following keys, all of which are optional:
+ * width, height (size of the image in pixels; 800 by 600 by default), scale (samples along each axis per pixel; 2 by default, which supersamples to smooth the edges of thin beams),
+ * target.shape (name of the shape as shown in the shape menu, such as "Convex lens"), target.material and world.material (indices of materials in the viewport's list of materials),
+ * camera.heading, camera.pitch (orbit of the camera about the origin in degrees from the front view), camera.distance (6 by default),
+ * orthographic, angles.degrees (true or false),
+ * raybox.N.heading, raybox.N.pitch (orbit of the Nth ray box about the origin in degrees from directly in front of the origin), raybox.N.label, raybox.N.thickness (1 to 10) and raybox.N.angles (true or false) for N = 1, 2, ... until there is no raybox.N.heading,
+ * output (path of the image file relative to the scene file; the scene file's name with a .png extension by default)
+ * @author William Platt
+ *
+ */
+public class BatchRenderer {
+	
+	/**
+	 * Renders each scene file given on the command line to an image file. Usage: BatchRenderer [-threads n] scene-file...
+	 * @param args the command line arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true"); // There is no window, so don't require a display
+		int numOfThreads = Runtime.getRuntime().availableProcessors();
+		List<File> sceneFiles = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-threads") && (i + 1 < args.length)) {
+				numOfThreads = Integer.parseInt(args[i + 1]);
+				i++;
+			} else {
+				sceneFiles.add(new File(args[i]));
+			}
+		}
+		if (sceneFiles.isEmpty() || (numOfThreads <= 0)) {
+			System.err.println("Usage: BatchRenderer [-threads n] scene-file...");
+			System.exit(2);
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(numOfThreads);
+		List<Future<File>> results = new ArrayList<Future<File>>();
+		for (final File sceneFile : sceneFiles) {
+			results.add(pool.submit(new Callable<File>() {
+				
+				/**
+				 * Renders one scene file on a thread from the pool
+				 * @return the image file that was written
+				 * @throws IOException if the scene file can't be read or the image file can't be written
+				 */
+				public File call() throws IOException {
+					return renderScene(sceneFile);
+				}
+				
+			}));
+		}
+		pool.shutdown();
+		int numOfFailures = 0;
+		for (int i = 0; i < results.size(); i++) {
+			try {
+				System.out.println(sceneFiles.get(i) + " -> " + results.get(i).get());
+			} catch (ExecutionException e) {
+				System.err.println(sceneFiles.get(i) + ": " + e.getCause());
+				numOfFailures++;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				numOfFailures++;
+				break;
+			}
+		}
+		System.exit((numOfFailures == 0) ? 0 : 1);
+	}
+	
+	/**
+	 * Reads a scene file, renders the scene and writes the image file
+	 * @param sceneFile the properties file describing the scene
+	 * @return the image file that was written
+	 * @throws IOException if the scene file can't be read or the image file can't be written
+	 * @throws IllegalArgumentException if the scene file contains an invalid value
+	 */
+	public static File renderScene(File sceneFile) throws IOException {
+		Properties scene = new Properties();
+		InputStream in = new FileInputStream(sceneFile);
+		try {
+			scene.load(in);
+		} finally {
+			in.close();
+		}
+		int width = Integer.parseInt(scene.getProperty("width", "800"));
+		int height = Integer.parseInt(scene.getProperty("height", "600"));
+		double renderScale = Double.parseDouble(scene.getProperty("scale", "2"));
+		BufferedImage image = loadScene(scene).render(width, height, renderScale);
+		String defaultName = sceneFile.getName().replaceFirst("\\.[^.]*$", "") + ".png";
+		File outputFile = new File(scene.getProperty("output", defaultName));
+		if (!outputFile.isAbsolute()) {
+			outputFile = new File(sceneFile.getAbsoluteFile().getParentFile(), outputFile.getPath());
+		}
+		String fileName = outputFile.getName();
+		String fileExtension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+		if (!ImageIO.write(image, fileExtension, outputFile)) {
+			throw new IOException("There is no writer for images of type " + fileExtension);
+		}
+		return outputFile;
+	}
+	
+	/**
+	 * Sets up an offscreen scene from the properties read from a scene file
+	 * @param scene the properties describing the scene (see the class description for the keys)
+	 * @return the offscreen renderer containing the scene
+	 * @throws IllegalArgumentException if a property has an invalid value
+	 */
+	public static OffscreenRenderer loadScene(Properties scene) {
+		OffscreenRenderer renderer = new OffscreenRenderer(Color.BLACK);
+		String shapeName = scene.getProperty("target.shape");
+		if (shapeName != null) {
+			renderer.setTargetShape(parseShape(shapeName));
+		}
+		if (scene.getProperty("target.material") != null) {
+			renderer.setTargetMaterial(Integer.parseInt(scene.getProperty("target.material")));
+		}
+		if (scene.getProperty("world.material") != null) {
+			renderer.setWorldMaterial(Integer.parseInt(scene.getProperty("world.material")));
+		}
+		renderer.setCameraDistance(Double.parseDouble(scene.getProperty("camera.distance", "6")));
+		double cameraHeading = Math.toRadians(Double.parseDouble(scene.getProperty("camera.heading", "0")));
+		double cameraPitch = Math.toRadians(Double.parseDouble(scene.getProperty("camera.pitch", "0")));
+		renderer.orbitCamera(cameraHeading, cameraPitch);
+		renderer.setOrthographic(Boolean.parseBoolean(scene.getProperty("orthographic", "false")));
+		renderer.setAnglesInDegrees(Boolean.parseBoolean(scene.getProperty("angles.degrees", "true")));
+		for (int n = 1; scene.getProperty("raybox." + n + ".heading") != null; n++) {
+			String prefix = "raybox." + n + ".";
+			RayBox rayBox = new RayBox(Math.toRadians(Double.parseDouble(scene.getProperty(prefix + "heading"))));
+			rayBox.orbitAboutOrigin(0, Math.toRadians(Double.parseDouble(scene.getProperty(prefix + "pitch", "0"))));
+			rayBox.setLabel(scene.getProperty(prefix + "label", ""));
+			int thickness = Integer.parseInt(scene.getProperty(prefix + "thickness", "3"));
+			if ((thickness < 1) || (thickness > 10)) {
+				throw new IllegalArgumentException("The beam thickness must be between 1 and 10");
+			} else {
+				rayBox.setBeamThickness(thickness);
+			}
+			rayBox.setAnglesVisible(Boolean.parseBoolean(scene.getProperty(prefix + "angles", "false")));
+			renderer.addRayBox(rayBox);
+		}
+		return renderer;
+	}
+	
+	/**
+	 * Finds the primitive shape with a particular name
+	 * @param shapeName the user-friendly name of the shape, ignoring case, or the name of the Mesh.Primitive constant
+	 * @return the shape with that name
+	 * @throws IllegalArgumentException if there is no shape with that name
+	 */
+	private static Mesh.Primitive parseShape(String shapeName) {
+		for (Mesh.Primitive shape : Mesh.Primitive.values()) {
+			if (shape.toString().equalsIgnoreCase(shapeName) || shape.name().equalsIgnoreCase(shapeName)) {
+				return shape;
+			}
+		}
+		throw new IllegalArgumentException("There is no shape called " + shapeName);
+	}
+	
+}
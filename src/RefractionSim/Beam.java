@@ -8,13 +8,27 @@ import java.awt.Color;
  */
 public class Beam extends Object3D {
 	
-	private Vector[] points = new Vector[100];
+	private Vec3[] points = new Vec3[100]; // Filled with vectors by the constructor, which are reused every time the beam is traced
 	private int numOfPoints = 0;
 	private double[] angles = new double[196]; // 2 angles for every point other than the first and last
-	private Vector[] anglePositions = new Vector[196]; // Position in 3-D space at which to write angles when displaying them in the viewport
+	private Vec3[] anglePositions = new Vec3[196]; // Position in 3-D space at which to write angles when displaying them in the viewport
 	private int numOfAngles = 0;
 	private double radius;
 	private boolean anglesVisible;
+	private static final Profiler PROFILER = Profiling.getProfiler(); // Records beam updates and tracing when profiling
+	private static final SimulatorMetrics METRICS = SimulatorMetrics.getMetrics();
+	// The edges of the face being tested by calcNextRay(), which are reused for every face so that testing a face doesn't allocate
+	private Edge2D edge0 = new Edge2D(0, 0, 0, 0);
+	private Edge2D edge1 = new Edge2D(0, 0, 0, 0);
+	private Edge2D edge2 = new Edge2D(0, 0, 0, 0);
+	// Working vectors and matrix for nextVector(), which are reused for every bounce so that calculating the next direction doesn't allocate
+	private Vec3 direction = new Vec3();
+	private Vec3 unitNormal = new Vec3();
+	private Vec3 xBasis = new Vec3();
+	private Vec3 yBasis = new Vec3();
+	private Vec3 zBasis = new Vec3();
+	private Vec3 anglePositionOffset = new Vec3();
+	private Mat3 basis = new Mat3();
 	
 	/**
 	 * Constructor for the Beam class that sets its colour, radius, default position and orientation, and sets angles to be displayed in the viewport
@@ -27,6 +41,9 @@ public class Beam extends Object3D {
 		this.origin = new Vector(3); // [0, 0, 0]
 		this.radius = radius;
 		this.anglesVisible = true;
+		for (int i = 0; i < points.length; i++) {
+			points[i] = new Vec3();
+		}
 	}
 	
 	/**
@@ -38,11 +55,23 @@ public class Beam extends Object3D {
 	}
 	
 	/**
-	 * Recalculates the beam's path and regenerates its geometry
+	 * Recalculates the beam's path through the viewport's target and regenerates its geometry
 	 */
 	public void update() {
-		calculateRays();
+		update((Target)(Viewport.getObjectList()[1]), Viewport.getWorldMaterial());
+	}
+	
+	/**
+	 * Recalculates the beam's path through a particular target and regenerates its geometry; this doesn't use the viewport's scene, so beams in different scenes can be traced on different threads
+	 * @param target the target object that the beam is refracted and reflected by
+	 * @param worldMaterial the index of the material of the surroundings
+	 */
+	public void update(Target target, int worldMaterial) {
+		Object updateEvent = PROFILER.beginBeamUpdate();
+		calculateRays(target, worldMaterial);
 		generateMesh();
+		PROFILER.endBeamUpdate(updateEvent, getID(), numOfPoints - 2);
+		METRICS.beamRecalculated(numOfPoints - 1); // There is a ray between each pair of consecutive points
 	}
 	
 	/**
@@ -90,10 +119,18 @@ public class Beam extends Object3D {
 	 * Returns the list of positions in 3-D space for each of the angles in order from the ray box
 	 * @return the list of positions for the angles in the same order as the list of angles
 	 */
-	public Vector[] getAnglePositions() {
+	public Vec3[] getAnglePositions() {
 		return anglePositions;
 	}
 	
+	/**
+	 * Returns the number of points along the path of the beam, which includes the ray box, every point where the beam meets a surface of the target and the end of the beam
+	 * @return the number of points along the path of the beam
+	 */
+	public int getNumOfPoints() {
+		return numOfPoints;
+	}
+	
 	/**
 	 * Returns the number of angles in the list of angles
 	 * @return the number of angles in the list of angles
@@ -106,21 +143,26 @@ public class Beam extends Object3D {
 	 * Generates the geometry of the beam if the rays have been calculated
 	 */
 	private void generateMesh() {
+		if (numOfPoints == 0) { // The beam hasn't been traced yet, such as when its thickness is set before it is added to a scene
+			return;
+		}
 		int[][] faces = new int[(numOfPoints - 1) * 8][3]; // Between every square of vertices (every point) there are 4 square surfaces each comprised of 2 triangular faces
-		Vector[] verts = new Vector[4 * numOfPoints]; // There is a square of vertices at each point
-		Vector displace0 = new Vector(3);
-		displace0.setElements(new double[] {-radius, radius, 0}); // Displacement of the top left vertex of a square from the point where the ray and face intersect
-		Vector displace1 = new Vector(3);
-		displace1.setElements(new double[] {radius, radius, 0}); // Displacement of the top right vertex
+		Vec3[] verts = new Vec3[4 * numOfPoints]; // There is a square of vertices at each point
 		int j = 0; // Vertex counter
 		int k = 0; // Face counter
-		Matrix rotation = orientation.transpose();
+		Mat3 rotation = new Mat3(getOrientation()); // Multiplying by the transpose of this maps world space directions to object space
+		Vec3 objectOrigin = new Vec3(origin);
+		Vec3 centerPoint = new Vec3();
 		for (int i = 0; i < numOfPoints; i++) {
-			Vector centerPoint = rotation.multiply((points[i].subtract(origin))); // Map point from world space to object space
-			verts[j] = centerPoint.add(displace0); // Create top left vertex
-			verts[j+1] = centerPoint.add(displace1); // Create top right vertex
-			verts[j+2] = centerPoint.subtract(displace0); // Create bottom right vertex
-			verts[j+3] = centerPoint.subtract(displace1); // Create bottom left vertex
+			rotation.transposeMultiply(centerPoint.set(points[i]).subtract(objectOrigin), centerPoint); // Map point from world space to object space
+			double x = centerPoint.getX();
+			double y = centerPoint.getY();
+			double z = centerPoint.getZ();
+			// The corners of the square are displaced by the radius from the point where the ray and face intersect
+			verts[j] = new Vec3(x - radius, y + radius, z); // Create top left vertex
+			verts[j+1] = new Vec3(x + radius, y + radius, z); // Create top right vertex
+			verts[j+2] = new Vec3(x + radius, y - radius, z); // Create bottom right vertex
+			verts[j+3] = new Vec3(x - radius, y - radius, z); // Create bottom left vertex
 			if (i > 0) { // Create faces between the vertices just created and the last square of vertices
 				// For each face, list vertices in clockwise order when looking at the face from outside of the beam
 				faces[k] = new int[] {j-4, j, j+1};
@@ -143,17 +185,19 @@ public class Beam extends Object3D {
 	}
 	
 	/**
-	 * Calculates the path of the beam as a sequence of rays and stores the points in 3-D space where the path switches between rays and the angles of rays to surface normals
+	 * Calculates the path of the beam as a sequence of rays and stores the points in 3-D space where the path switches between rays and the angles of rays to surface normals. The geometry of the beam isn't regenerated (see update()), so this can be timed on its own
+	 * @param target the target object that the beam is refracted and reflected by
+	 * @param worldMaterial the index of the material of the surroundings
 	 */
-	private void calculateRays() {
+	public void calculateRays(Target target, int worldMaterial) {
+		Object rayEvent = PROFILER.beginRayCalculation();
 		numOfPoints = 0;
 		numOfAngles = 0;
-		Vector p = this.origin; // Starting point of the beam in world space
-		Vector v = this.orientation.getVector(2); // Initial direction of the beam in world space
-		Ray currentRay = new Ray(p, v);
-		Target target = (Target)(Viewport.getObjectList()[1]);
+		Vec3 p = new Vec3(this.origin); // Starting point of the current ray in world space, which is moved to the start of each ray in turn
+		Vec3 v = new Vec3(getOrientation().getVector(2)); // Direction of the current ray in world space, starting with the initial direction of the beam
+		Vec3 lastV = new Vec3(); // Direction of the last ray to be stored, which the end of the beam continues along
 		double[] refractiveIndices = Viewport.getRefractiveIndices();
-		double targetIndexRelToWorld = refractiveIndices[target.getMaterial()] / refractiveIndices[Viewport.getWorldMaterial()];
+		double targetIndexRelToWorld = refractiveIndices[target.getMaterial()] / refractiveIndices[worldMaterial];
 		double criticalAngle;
 		if (targetIndexRelToWorld > 1) {
 			criticalAngle = Math.asin(1 / targetIndexRelToWorld);
@@ -161,46 +205,50 @@ public class Beam extends Object3D {
 			criticalAngle = Math.asin(targetIndexRelToWorld);
 		}
 		int i = 0;
+		boolean intersected;
 		do {
-			points[i] = currentRay.getP(); // Store the starting point of the ray
-			v = currentRay.getV();
-			currentRay = calcNextRay(currentRay, targetIndexRelToWorld, criticalAngle); // Calculate the next ray based on the current one. Null is returned if the current ray doesn't intersect any faces of the target object
+			points[i].set(p); // Store the starting point of the ray
+			lastV.set(v);
+			intersected = calcNextRay(p, v, target, targetIndexRelToWorld, criticalAngle); // Move p and v on to the next ray based on the current one. False is returned if the current ray doesn't intersect any faces of the target object
 			i++;
-		} while ((currentRay != null) && (i < points.length - 1)); // Repeat until the beam carries on to infinity without hitting a boundary between media or no more points can be stored (given that one more point is added after this loop)
+		} while (intersected && (i < points.length - 1)); // Repeat until the beam carries on to infinity without hitting a boundary between media or no more points can be stored (given that one more point is added after this loop)
 		if (i == 1) { // The beam never hit the target object
-			points[i] = points[i - 1].add(v.scale(10)); // Continue the beam in along its original line for 10 units
+			points[i].set(points[i - 1]).addScaled(lastV, 10); // Continue the beam in along its original line for 10 units
 		} else {
-			points[i] = points[i - 1].add(v.scale(8)); // Continue the beam along the line of the last ray for 8 units
+			points[i].set(points[i - 1]).addScaled(lastV, 8); // Continue the beam along the line of the last ray for 8 units
 		}
 		numOfPoints = i + 1; // i started at 0
+		PROFILER.endRayCalculation(rayEvent, getID(), numOfPoints - 2, target.getMesh().getFaces().length); // Every point but the ray box and the end of the beam is a bounce
 	}
 	
 	/**
-	 * Calculates and returns the next ray of the beam based on the intersection of the current ray and the target object
-	 * @param incidentRay the last ray that was calculated
+	 * Calculates the next ray of the beam based on the intersection of the current ray and the target object, replacing the current ray's starting point and direction with those of the next ray
+	 * @param p the starting point of the current ray, which is changed to the point where the next ray starts if there is one
+	 * @param v the direction of the current ray, which is changed to the direction of the next ray if there is one
+	 * @param target the target object that the beam is refracted and reflected by
 	 * @param targetIndexRelToWorld the refractive index of the target material relative to the world
 	 * @param criticalAngle the minimum angle from the normal needed for total internal reflection within the denser material
-	 * @return the next ray which the beam follows
+	 * @return whether the current ray intersects the target, in which case p and v now describe the next ray which the beam follows; if not, p and v are unchanged
 	 */
-	private Ray calcNextRay(Ray incidentRay, double targetIndexRelToWorld, double criticalAngle) {
-		Target target = (Target)(Viewport.getObjectList()[1]);
+	private boolean calcNextRay(Vec3 p, Vec3 v, Target target, double targetIndexRelToWorld, double criticalAngle) {
 		Mesh mesh = target.getMesh();
 		int[][] faces = mesh.getFaces();
-		Vector[] verts = mesh.getVerts();
-		Vector[] normals = mesh.getNormals();
+		Vec3[] verts = mesh.getVerts();
+		Vec3[] normals = mesh.getNormals();
 		double[] ds = mesh.getDs(); // The equation of a plane is p.n = d where p is a point in the plane and n is the normal to the plane; ds is a list containing the value of d for each face
-		Vector p = incidentRay.getP(); // The starting point of the current ray
-		Vector v = incidentRay.getV(); // The direction of the current ray
-		Vector n;
+		Vec3 n;
 		double d;
 		double vMultiple = -1; // The displacement of the closest point of intersection so far from p in terms of v; it remains -1 until an intersection is found
 		int faceIntersected = -1; // The face of the target that is first intersected by the current ray; it remains -1 until an intersection is found
-		Vector finalPoint = new Vector(3);
+		// The point of intersection with the closest face so far, which is only stored in p once the closest face is known
+		double finalX = 0;
+		double finalY = 0;
+		double finalZ = 0;
 		for (int i = 0; i < faces.length; i++) { // Iterate through all of the target's faces and check if the current ray intersects the face
 			n = normals[i]; // Normal for the current face
 			d = ds[i]; // Value of d for the current face
-			double nDotP = n.dotProduct(p);
-			double nDotV = n.dotProduct(v); // The compononet of v in the direction of n
+			double nDotP = n.dot(p);
+			double nDotV = n.dot(v); // The compononet of v in the direction of n
 			// Go to the next face if the value of lambda will not be positive (meaning the face is in the opposite direction to v from p)
 			if (nDotP < d) {
 				if (nDotV <= 0) {
@@ -214,37 +262,36 @@ public class Beam extends Object3D {
 			double lambda = (d - nDotP) / nDotV; // d - nDotP gives the shortest distance from p to the plane, so lambda is the number of times p must be displaced by v to be in the plane of the face
 			if (lambda > 0.0001) { // Prevent a beam interacting with the same face twice consecutively due to floating point error
 				if ((vMultiple == -1) || (lambda < vMultiple)) { // If there have been no intersections so far or the distance to the plane in terms of v is less than the shortest found so far
-					// The three edges of the face
-					Edge2D edge0;
-					Edge2D edge1;
-					Edge2D edge2;
 					double intersectX;
 					double intersectY;
-					Vector pointInPlane = p.add(v.scale(lambda)); // Point where the current ray intersects the face
+					// Point where the current ray intersects the face
+					double pointX = p.getX() + v.getX() * lambda;
+					double pointY = p.getY() + v.getY() * lambda;
+					double pointZ = p.getZ() + v.getZ() * lambda;
 					// Orthographicallly project the plane into 2-D
-					if (n.getElement(2) == 0) { // The face is not tilted forwards or backwards
-						if (n.getElement(0) == 0) { // The face is horizontal, so x and z co-ordinates can be used without the vertices becoming colinear in two dimensions
+					if (n.getZ() == 0) { // The face is not tilted forwards or backwards
+						if (n.getX() == 0) { // The face is horizontal, so x and z co-ordinates can be used without the vertices becoming colinear in two dimensions
 							// In this projection, x co-ordinates remain x co-ordinates and z co-ordinates become y co-ordinates
-							edge0 = new Edge2D(verts[faces[i][0]].getElement(0), verts[faces[i][0]].getElement(2), verts[faces[i][1]].getElement(0), verts[faces[i][1]].getElement(2));
-							edge1 = new Edge2D(verts[faces[i][1]].getElement(0), verts[faces[i][1]].getElement(2), verts[faces[i][2]].getElement(0), verts[faces[i][2]].getElement(2));
-							edge2 = new Edge2D(verts[faces[i][2]].getElement(0), verts[faces[i][2]].getElement(2), verts[faces[i][0]].getElement(0), verts[faces[i][0]].getElement(2));
-							intersectX = pointInPlane.getElement(0); // x --> x
-							intersectY = pointInPlane.getElement(2); // z --> y
+							edge0.set(verts[faces[i][0]].getX(), verts[faces[i][0]].getZ(), verts[faces[i][1]].getX(), verts[faces[i][1]].getZ());
+							edge1.set(verts[faces[i][1]].getX(), verts[faces[i][1]].getZ(), verts[faces[i][2]].getX(), verts[faces[i][2]].getZ());
+							edge2.set(verts[faces[i][2]].getX(), verts[faces[i][2]].getZ(), verts[faces[i][0]].getX(), verts[faces[i][0]].getZ());
+							intersectX = pointX; // x --> x
+							intersectY = pointZ; // z --> y
 						} else { // The face is not titled forwards/backwards but is tilted left/right, so z and y co-ordinates can be used
 							// z --> x, y --> y
-							edge0 = new Edge2D(verts[faces[i][0]].getElement(2), verts[faces[i][0]].getElement(1), verts[faces[i][1]].getElement(2), verts[faces[i][1]].getElement(1));
-							edge1 = new Edge2D(verts[faces[i][1]].getElement(2), verts[faces[i][1]].getElement(1), verts[faces[i][2]].getElement(2), verts[faces[i][2]].getElement(1));
-							edge2 = new Edge2D(verts[faces[i][2]].getElement(2), verts[faces[i][2]].getElement(1), verts[faces[i][0]].getElement(2), verts[faces[i][0]].getElement(1));
-							intersectX = pointInPlane.getElement(2); // z --> x
-							intersectY = pointInPlane.getElement(1); // y --> y
+							edge0.set(verts[faces[i][0]].getZ(), verts[faces[i][0]].getY(), verts[faces[i][1]].getZ(), verts[faces[i][1]].getY());
+							edge1.set(verts[faces[i][1]].getZ(), verts[faces[i][1]].getY(), verts[faces[i][2]].getZ(), verts[faces[i][2]].getY());
+							edge2.set(verts[faces[i][2]].getZ(), verts[faces[i][2]].getY(), verts[faces[i][0]].getZ(), verts[faces[i][0]].getY());
+							intersectX = pointZ; // z --> x
+							intersectY = pointY; // y --> y
 						}
 					} else { // We can use x and y co-ordinates and the vertices won't become colinear
 						// x --> x, y --> y
-						edge0 = new Edge2D(verts[faces[i][0]].getElement(0), verts[faces[i][0]].getElement(1), verts[faces[i][1]].getElement(0), verts[faces[i][1]].getElement(1));
-						edge1 = new Edge2D(verts[faces[i][1]].getElement(0), verts[faces[i][1]].getElement(1), verts[faces[i][2]].getElement(0), verts[faces[i][2]].getElement(1));
-						edge2 = new Edge2D(verts[faces[i][2]].getElement(0), verts[faces[i][2]].getElement(1), verts[faces[i][0]].getElement(0), verts[faces[i][0]].getElement(1));
-						intersectX = pointInPlane.getElement(0); // x --> x
-						intersectY = pointInPlane.getElement(1); // y --> y
+						edge0.set(verts[faces[i][0]].getX(), verts[faces[i][0]].getY(), verts[faces[i][1]].getX(), verts[faces[i][1]].getY());
+						edge1.set(verts[faces[i][1]].getX(), verts[faces[i][1]].getY(), verts[faces[i][2]].getX(), verts[faces[i][2]].getY());
+						edge2.set(verts[faces[i][2]].getX(), verts[faces[i][2]].getY(), verts[faces[i][0]].getX(), verts[faces[i][0]].getY());
+						intersectX = pointX; // x --> x
+						intersectY = pointY; // y --> y
 					}
 					// Find the tallest of the edges (greatest change in y)
 					Edge2D tallEdge = edge0;
@@ -303,58 +350,51 @@ public class Beam extends Object3D {
 						vMultiple = lambda; // Update the shortest distance (multiple of v) so far
 						faceIntersected = i; // Update the closest face intersected so far
 						// Update the point of intersection with the closest face so far
-						finalPoint.setElement(0, pointInPlane.getElement(0));
-						finalPoint.setElement(1, pointInPlane.getElement(1));
-						finalPoint.setElement(2, pointInPlane.getElement(2));
+						finalX = pointX;
+						finalY = pointY;
+						finalZ = pointZ;
 					}
 				}
 			}
 		}
 		if (faceIntersected == -1) { // If the ray didn't intersect any faces
-			return null;
+			return false;
 		} else {
-			return new Ray(finalPoint, nextVector(v, normals[faceIntersected], targetIndexRelToWorld, criticalAngle, finalPoint)); // Calculate the direction of the next ray and return create a new ray which the method will return
+			p.set(finalX, finalY, finalZ); // The next ray starts where the current ray meets the face
+			nextVector(v, normals[faceIntersected], targetIndexRelToWorld, criticalAngle, p); // Calculate the direction of the next ray
+			return true;
 		}
 	}
 	
 	/**
-	 * Calculates the direction of the next ray and returns the result as a normalised 3-row vector
-	 * @param vector the direction of the current ray
-	 * @param normal the vector perpendicular to the face being intersected
+	 * Calculates the direction of the next ray and stores the result as a normalised vector in place of the direction of the current ray
+	 * @param vector the direction of the current ray, which is changed to the direction (as a unit vector) of the next ray
+	 * @param normal the vector perpendicular to the face being intersected (it isn't changed)
 	 * @param targetIndexRelToWorld the refractive index of the target material relative to the world
 	 * @param criticalAngle the minimum angle between vector and normal within the denser material that would cause total internal reflection
 	 * @param intersection the point of intersection with the face in world space
-	 * @return the direction (as a unit vector) of the next ray after the one with direction vector that intersects the face with normal normal at the point intersection
 	 */
-	private Vector nextVector(Vector vector, Vector normal, double targetIndexRelToWorld, double criticalAngle, Vector intersection) {
-		vector = vector.normalise(); // Ensure that vector has a length of 1
-		Vector incidentAnglePosition;
-		normal = normal.normalise(); // Ensure that the normal to the face has unit length
-		double vDotN = vector.dotProduct(normal); // v.n = |v||n|cos(x) where x is the angle between v and n. |v| and |n| are both 1 in this case, so v.n = cos(x)
+	private void nextVector(Vec3 vector, Vec3 normal, double targetIndexRelToWorld, double criticalAngle, Vec3 intersection) {
+		direction.set(vector).normalise(); // Ensure that the direction has a length of 1
+		unitNormal.set(normal).normalise(); // Ensure that the normal to the face has unit length. A copy is normalised so that the mesh's normal isn't changed
+		double vDotN = direction.dot(unitNormal); // v.n = |v||n|cos(x) where x is the angle between v and n. |v| and |n| are both 1 in this case, so v.n = cos(x)
 		if (vDotN == 0) { // If the current ray is perpendicular to the face (in the plane of the face)
-			return vector; // Treat the ray as not intersecting the face
+			vector.set(direction); // Treat the ray as not intersecting the face
+			return;
 		} else {
+			Vec3 incidentAnglePosition; // A new vector is created for each angle position because snapshots of the scene share them with the render thread
 			if (vDotN > 0) { // If the angle between v and n is less than pi/2 radians
-				incidentAnglePosition = intersection.subtract(Math2.midpoint(vector.scale(0.3), normal.scale(0.3))); // Set the position of the angle of incidence halfway between vector and normal at about 0.3 units from the point of intersection
+				incidentAnglePosition = new Vec3(intersection).subtract(angleOffset(0.3)); // Set the position of the angle of incidence halfway between vector and normal at about 0.3 units from the point of intersection
 			} else {
-				incidentAnglePosition = intersection.subtract(Math2.midpoint(vector.scale(0.3), normal.scale(-0.3))); // Use a negative scale factor for normal because it is facing the opposite way to vector
+				incidentAnglePosition = new Vec3(intersection).subtract(angleOffset(-0.3)); // Use a negative scale factor for normal because it is facing the opposite way to vector
 			}
 			// There is a 2-D plane containing both vector and normal; working in 2-D is simpler than 3-D. Derive the matrix to rotate the vectors so that they lie horizontally (in the plane y = 0; each vector has its tail at the origin)
-			Vector p2 = vector.scale(-1); // Negations such as these are used to ensure the new co-ordinate system is left-handed so that the resulting matrix doesn't represent reflection as well as rotation
-			Matrix rotateVecsToYEquals0 = new Matrix(3, 3);
-			Vector xBasis = normal.scale(-1); // In the co-ordinate system where vector and normal are in the plane y = 0, the x-axis is -normal
-			rotateVecsToYEquals0.setElement(0, 0, xBasis.getElement(0));
-			rotateVecsToYEquals0.setElement(0, 1, xBasis.getElement(1));
-			rotateVecsToYEquals0.setElement(0, 2, xBasis.getElement(2));
-			Vector yBasis = p2.crossProduct(normal).normalise(); // Use the cross product on two points in the plane to give a vector perpendicular to y = 0, the y-axis
-			rotateVecsToYEquals0.setElement(1, 0, yBasis.getElement(0));
-			rotateVecsToYEquals0.setElement(1, 1, yBasis.getElement(1));
-			rotateVecsToYEquals0.setElement(1, 2, yBasis.getElement(2));
-			Vector zBasis = yBasis.scale(-1).crossProduct(xBasis).normalise(); // Use the cross-product on two points in the plane z = 0 to give the z-axis
-			rotateVecsToYEquals0.setElement(2, 0, zBasis.getElement(0));
-			rotateVecsToYEquals0.setElement(2, 1, zBasis.getElement(1));
-			rotateVecsToYEquals0.setElement(2, 2, zBasis.getElement(2));
-			rotateVecsToYEquals0 = rotateVecsToYEquals0.transpose(); // This inverts an orthogonal matrix such as this. Before doing this the matrix of basis vectors for the new co-ordinate space converts points in this co-ordinate space to world space; we want the reverse
+			xBasis.set(unitNormal).scale(-1); // In the co-ordinate system where vector and normal are in the plane y = 0, the x-axis is -normal
+			yBasis.set(direction).scale(-1); // Negations such as these are used to ensure the new co-ordinate system is left-handed so that the resulting matrix doesn't represent reflection as well as rotation
+			yBasis.cross(yBasis, unitNormal).normalise(); // Use the cross product on two points in the plane to give a vector perpendicular to y = 0, the y-axis
+			zBasis.set(yBasis).scale(-1);
+			zBasis.cross(zBasis, xBasis).normalise(); // Use the cross-product on two points in the plane z = 0 to give the z-axis
+			basis.setColumns(xBasis, yBasis, zBasis); // The matrix of basis vectors for the new co-ordinate space converts points in this co-ordinate space to world space. Its transpose is its inverse because it is orthogonal, so multiplying by the transpose does the reverse
 			
 			double angle = Math.acos(vDotN); // The angle between vector and normal because they were both normalised
 			if (angle > Math.PI / 2) { // If the vectors were in opposite directions (vDotN < 0), then we will have the larger of the two angles between them
@@ -362,65 +402,70 @@ public class Beam extends Object3D {
 			}
 			addAngle(angle, incidentAnglePosition); // Add an angle to the list of angles and a position to the list of angle positions
 			
-			vector = rotateVecsToYEquals0.multiply(vector); // Map vector to the new co-ordinate system where it is in the plane y = 0. normal doesn't need mapping because it is along the x-axis
+			basis.transposeMultiply(direction, direction); // Map the direction to the new co-ordinate system where it is in the plane y = 0. normal doesn't need mapping because it is along the x-axis
 			if (vDotN < 0) { // World to target transition
 				
 				if (targetIndexRelToWorld > 1) { // Target is the denser material
-					vector = refract(vector, targetIndexRelToWorld); // Calculate the next (normalised) vector in the new co-ordinate system
+					refract(direction, targetIndexRelToWorld); // Calculate the next (normalised) vector in the new co-ordinate system
 				} else { // World is the denser material
 					if (angle >= criticalAngle) {
-						vector.setElement(0, -vector.getElement(0)); // Reflect the vector
+						direction.setX(-direction.getX()); // Reflect the vector
 					} else {
-						vector = refract(vector, targetIndexRelToWorld);
+						refract(direction, targetIndexRelToWorld);
 					}
 				}
 			} else { // Target to world transition
 				if (targetIndexRelToWorld > 1) { // Target is the denser material
 					if (angle >= criticalAngle) {
-						vector.setElement(0, -vector.getElement(0)); // Reflect the vector
+						direction.setX(-direction.getX()); // Reflect the vector
 					} else {
-						vector = refract(vector, 1 / targetIndexRelToWorld); // Pass the refractive index of the world relative to the target material
+						refract(direction, 1 / targetIndexRelToWorld); // Pass the refractive index of the world relative to the target material
 					}
 				} else {
-					vector = refract(vector, 1 / targetIndexRelToWorld); // Pass the refractive index of the world relative to the target material
+					refract(direction, 1 / targetIndexRelToWorld); // Pass the refractive index of the world relative to the target material
 				}
 			}
-			vector = rotateVecsToYEquals0.transpose().multiply(vector); // Map the next vector from the new co-ordinate space to world space
+			basis.multiply(direction, direction); // Map the next vector from the new co-ordinate space to world space
 		}
-		vDotN = vector.dotProduct(normal); // Cosine of the angle between the new vector and the normal
-		Vector finalAnglePosition;
+		vDotN = direction.dot(unitNormal); // Cosine of the angle between the new vector and the normal
+		Vec3 finalAnglePosition;
 		// Calculate the position of the angle of refraction similarly to incidentAnglePosition
 		if (vDotN > 0) {
-			finalAnglePosition = intersection.add(Math2.midpoint(vector.scale(0.3), normal.scale(0.3)));
+			finalAnglePosition = new Vec3(intersection).add(angleOffset(0.3));
 		} else {
-			finalAnglePosition = intersection.add(Math2.midpoint(vector.scale(0.3), normal.scale(-0.3)));
+			finalAnglePosition = new Vec3(intersection).add(angleOffset(-0.3));
 		}
 		double angle = Math.acos(vDotN);
 		if (angle > Math.PI / 2) { // Find the smaller of the two angles between normal and the new vector
 			angle = Math.PI - angle;
 		}
 		addAngle(angle, finalAnglePosition); // Store the angle and its position in 3-D space
-		return vector; // Reurn the new vector
+		vector.set(direction); // Store the new vector
+	}
+	
+	/**
+	 * Calculates the displacement of an angle's position from the point of intersection, which is the midpoint of the current direction and the current normal after scaling both
+	 * @param normalScale the scale factor for the normal; the direction is scaled by 0.3, and the normal is scaled by -0.3 instead when it faces the opposite way to the direction
+	 * @return the displacement, stored in a vector that is reused by the next call
+	 */
+	private Vec3 angleOffset(double normalScale) {
+		return anglePositionOffset.set(direction).scale(0.3).addScaled(unitNormal, normalScale).scale(0.5);
 	}
 	
 	/**
-	 * Calculates and returns the vector produced by the refraction of incidentVector passing from material A to material B where refractiveIndex is the refractive index of material B relative to material A
-	 * @param incidentVector the direction of the previous ray rotated into the plane y = 0 with x-axis -normal
+	 * Replaces incidentVector with the vector produced by its refraction passing from material A to material B where refractiveIndex is the refractive index of material B relative to material A
+	 * @param incidentVector the direction of the previous ray rotated into the plane y = 0 with x-axis -normal, which is changed to the direction of the next ray
 	 * @param refractiveIndex the refractive index of the destination material relative to the source material
-	 * @return the direction of the next ray
 	 */
-	private Vector refract(Vector incidentVector, double refractiveIndex) { // Take the x-axis to be the normal and all y-values should be zero
+	private void refract(Vec3 incidentVector, double refractiveIndex) { // Take the x-axis to be the normal and all y-values should be zero
 		// Snell's law: refractive index = sin(i) / sin(r)
-		double sinR = incidentVector.getElement(2) / refractiveIndex; // getElement(2) represents the component of incidentVector perpendicular to the normal (sin(i)). sinR represents the component of the new vector perpendicular to the normal
+		double sinR = incidentVector.getZ() / refractiveIndex; // getZ() represents the component of incidentVector perpendicular to the normal (sin(i)). sinR represents the component of the new vector perpendicular to the normal
 		double cosR = Math.cos(Math.asin(sinR)); // The component of the new vector parallel to the normal
-		Vector refractedVector = new Vector(3);
-		if (incidentVector.getElement(0) < 0) {
-			refractedVector.setElement(0, -cosR); // If the incident ray was going against the direction of the normal, the refracted ray will also be more than pi/2 radians from the direction of the normal
+		if (incidentVector.getX() < 0) {
+			incidentVector.set(-cosR, 0, sinR); // If the incident ray was going against the direction of the normal, the refracted ray will also be more than pi/2 radians from the direction of the normal
 		} else {
-			refractedVector.setElement(0, cosR); // If the incident ray was in a similar direction to the normal, the refracted ray will also be in a similar direction to the normal
+			incidentVector.set(cosR, 0, sinR); // If the incident ray was in a similar direction to the normal, the refracted ray will also be in a similar direction to the normal. The new vector's z component is sinR (z-axis is perpendicular to x-axis and normal)
 		}
-		refractedVector.setElement(2, sinR); // Set the new vector's z component to sinR (z-axis is perpendicular to x-axis and normal)
-		return refractedVector;
 	}
 	
 	/**
@@ -428,7 +473,7 @@ public class Beam extends Object3D {
 	 * @param angle the angle to append to the list
 	 * @param position the position in 3-D space of the angle to append to the list
 	 */
-	private void addAngle(double angle, Vector position) {
+	private void addAngle(double angle, Vec3 position) {
 		angles[numOfAngles] = angle; // ArrayIndexOutOfBoundsException should be avoided because the number of points is limited
 		anglePositions[numOfAngles] = position; // Exception avoided here also
 		numOfAngles++;
@@ -0,0 +1,131 @@
+package RefractionSim;
+
+/**
+ * Class for clipping faces against the view frustum in homogeneous clip space using the Sutherland-Hodgman algorithm
+ * @author William Platt
+ *
+ */
+public class Clipper {
+	
+	// Bits of an outcode; a bit is set when a point is on the outside of the corresponding plane of the view frustum
+	public static final int LEFT = 1;
+	public static final int RIGHT = 2;
+	public static final int BOTTOM = 4;
+	public static final int TOP = 8;
+	public static final int NEAR = 16;
+	public static final int FAR = 32;
+	private static final int NUM_OF_PLANES = 6;
+	public static final int MAX_VERTS = 3 + NUM_OF_PLANES; // The most vertices a clipped triangle can have because each plane can add at most one vertex to a convex polygon
+	
+	private double[][] polygon = new double[MAX_VERTS][4]; // Vertices of the clipped polygon in clip space (x, y, z, w)
+	private double[][] spare = new double[MAX_VERTS][4]; // Polygon being written to while clipping against a single plane
+	private int numOfVerts = 0;
+	
+	/**
+	 * Returns the outcode of a point in clip space, which has a bit set for each plane of the view frustum that the point is outside of
+	 * @param coords an array containing the point in clip space as 4 consecutive elements (x, y, z, w)
+	 * @param c the index of the point's x co-ordinate in coords
+	 * @return the outcode of the point; 0 if the point is inside the view frustum
+	 */
+	public static int outcode(double[] coords, int c) {
+		int code = 0;
+		for (int plane = 0; plane < NUM_OF_PLANES; plane++) {
+			if (distance(coords, c, plane) < 0) {
+				code |= 1 << plane;
+			}
+		}
+		return code;
+	}
+	
+	/**
+	 * Clips a triangle against the planes of the view frustum that at least one of its vertices is outside of. The resulting convex polygon can then be retrieved with getVertex()
+	 * @param coords an array of points in clip space stored as 4 consecutive elements (x, y, z, w) each
+	 * @param i0 the index in coords of the x co-ordinate of the first vertex of the triangle
+	 * @param i1 the index of the x co-ordinate of the second vertex
+	 * @param i2 the index of the x co-ordinate of the third vertex
+	 * @param planes the bitwise OR of the outcodes of the three vertices, which determines the planes to clip against
+	 * @return the number of vertices of the clipped polygon (0 if nothing is left; otherwise at least 3). The vertices are in the same winding order as the triangle
+	 */
+	public int clip(double[] coords, int i0, int i1, int i2, int planes) {
+		System.arraycopy(coords, i0, polygon[0], 0, 4);
+		System.arraycopy(coords, i1, polygon[1], 0, 4);
+		System.arraycopy(coords, i2, polygon[2], 0, 4);
+		numOfVerts = 3;
+		for (int plane = 0; (plane < NUM_OF_PLANES) && (numOfVerts >= 3); plane++) {
+			if ((planes & (1 << plane)) != 0) { // Only clip against planes which at least one vertex is outside of
+				clipToPlane(plane);
+			}
+		}
+		if (numOfVerts < 3) {
+			numOfVerts = 0;
+		}
+		return numOfVerts;
+	}
+	
+	/**
+	 * Returns a vertex of the polygon produced by the last call to clip()
+	 * @param i the index of the vertex which must be less than the value returned by clip()
+	 * @return the vertex in clip space as an array of 4 elements (x, y, z, w); the array is reused by the next call to clip()
+	 */
+	public double[] getVertex(int i) {
+		return polygon[i];
+	}
+	
+	/**
+	 * Replaces the polygon with the part of it that is inside the specified plane (the Sutherland-Hodgman algorithm for a single plane)
+	 * @param plane the index of the plane, which is also the index of its bit in an outcode
+	 */
+	private void clipToPlane(int plane) {
+		int numOfNewVerts = 0;
+		double[] prev = polygon[numOfVerts - 1];
+		double prevDistance = distance(prev, 0, plane);
+		for (int i = 0; i < numOfVerts; i++) {
+			double[] current = polygon[i];
+			double currentDistance = distance(current, 0, plane);
+			if ((prevDistance >= 0) != (currentDistance >= 0)) { // The edge from prev to current crosses the plane, so add the point of intersection
+				double t = prevDistance / (prevDistance - currentDistance); // Distance is linear along an edge in clip space
+				double[] intersection = spare[numOfNewVerts];
+				for (int j = 0; j < 4; j++) {
+					intersection[j] = prev[j] + t * (current[j] - prev[j]);
+				}
+				numOfNewVerts++;
+			}
+			if (currentDistance >= 0) { // Keep vertices on the inside of the plane
+				System.arraycopy(current, 0, spare[numOfNewVerts], 0, 4);
+				numOfNewVerts++;
+			}
+			prev = current;
+			prevDistance = currentDistance;
+		}
+		// Swap the polygons so that the clipped one becomes the current one without allocating new arrays
+		double[][] temp = polygon;
+		polygon = spare;
+		spare = temp;
+		numOfVerts = numOfNewVerts;
+	}
+	
+	/**
+	 * Returns the signed distance of a point from a plane of the view frustum in clip space, scaled such that it is only important whether the value is positive (inside) or negative (outside) and that it changes linearly along an edge
+	 * @param p an array containing the point in clip space as 4 consecutive elements (x, y, z, w)
+	 * @param c the index of the point's x co-ordinate in p
+	 * @param plane the index of the plane
+	 * @return the scaled signed distance of the point from the plane; negative if the point is outside the plane
+	 */
+	private static double distance(double[] p, int c, int plane) {
+		switch (plane) {
+			case 0: // Left: x >= -w
+				return p[c + 3] + p[c];
+			case 1: // Right: x <= w
+				return p[c + 3] - p[c];
+			case 2: // Bottom: y >= -w
+				return p[c + 3] + p[c + 1];
+			case 3: // Top: y <= w
+				return p[c + 3] - p[c + 1];
+			case 4: // Near: z >= 0 because the near clip plane is mapped to a depth of 0
+				return p[c + 2];
+			default: // Far: z <= w
+				return p[c + 3] - p[c + 2];
+		}
+	}
+	
+}
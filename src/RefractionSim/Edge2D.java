@@ -21,6 +21,17 @@ public class Edge2D {
 	 * @param y1 the y co-ordinate of the second end of the edge
 	 */
 	public Edge2D(double x0, double y0, double x1, double y1) {
+		set(x0, y0, x1, y1);
+	}
+	
+	/**
+	 * Moves the ends of the edge so that the same edge object can be reused for many edges without allocating
+	 * @param x0 the x co-ordinate of the first end of the edge
+	 * @param y0 the y co-ordinate of the first end of the edge
+	 * @param x1 the x co-ordinate of the second end of the edge
+	 * @param y1 the y co-ordinate of the second end of the edge
+	 */
+	public void set(double x0, double y0, double x1, double y1) {
 		if (y0 < y1) {
 			this.x0 = x0;
 			this.y0 = y0;
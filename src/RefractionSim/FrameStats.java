@@ -0,0 +1,168 @@
+package RefractionSim;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+
+/**
+ * Class for the performance statistics of a single frame: how long each stage of producing the frame took and how much work the renderer did. The statistics can be drawn over the viewport as an overlay so that a slow frame rate can be traced to a particular stage.
+ * Timings are taken with System.nanoTime() a few times per object rather than per face or pixel, and counts are added up in local variables before being stored, so the statistics are cheap enough to collect for every frame whether or not the overlay is shown
+ * @author William Platt
+ *
+ */
+public class FrameStats {
+	
+	/**
+	 * The stages that a frame goes through, in order
+	 */
+	public enum Stage {
+		TRACE("Trace"), TRANSFORM("Transform"), RASTERISE("Rasterise"), OUTLINE("Outline"), LABELS("Labels"), BLIT("Blit");
+		
+		private String name;
+		
+		/**
+		 * Stores the name of the stage as shown in the overlay
+		 * @param name the user-friendly name of the stage
+		 */
+		private Stage(String name) {
+			this.name = name;
+		}
+		
+		/**
+		 * Returns the name of the stage as shown in the overlay
+		 * @return the name of the stage
+		 */
+		@Override
+		public String toString() {
+			return name;
+		}
+		
+	}
+	
+	private static final Font FONT = new Font("Monospaced", Font.PLAIN, 12);
+	private static final Color BACKGROUND = new Color(0, 0, 0, 160); // Semi-transparent so that the scene can still be seen behind the overlay
+	private long[] stageTimes = new long[Stage.values().length]; // Nanoseconds spent in each stage, indexed by the stage's ordinal
+	private int trianglesSubmitted; // Triangles of the objects that were rendered, before culling
+	private int trianglesCulled; // Triangles rejected before rasterisation because they were outside the view frustum, facing away from the camera or hidden behind nearer objects
+	private long pixelsShaded; // Samples written to the frame buffer, including samples later covered by nearer faces
+	
+	/**
+	 * Resets every time and count to 0 at the start of a frame
+	 */
+	public void clear() {
+		for (int i = 0; i < stageTimes.length; i++) {
+			stageTimes[i] = 0;
+		}
+		trianglesSubmitted = 0;
+		trianglesCulled = 0;
+		pixelsShaded = 0;
+	}
+	
+	/**
+	 * Copies all of the statistics of another frame into this one
+	 * @param other the statistics to copy
+	 */
+	public void copyFrom(FrameStats other) {
+		System.arraycopy(other.stageTimes, 0, stageTimes, 0, stageTimes.length);
+		trianglesSubmitted = other.trianglesSubmitted;
+		trianglesCulled = other.trianglesCulled;
+		pixelsShaded = other.pixelsShaded;
+	}
+	
+	/**
+	 * Returns the time spent in a stage of the frame
+	 * @param stage the stage
+	 * @return the time spent in the stage in nanoseconds
+	 */
+	public long getStageTime(Stage stage) {
+		return stageTimes[stage.ordinal()];
+	}
+	
+	/**
+	 * Sets the time spent in a stage of the frame
+	 * @param stage the stage
+	 * @param nanos the time spent in the stage in nanoseconds
+	 */
+	public void setStageTime(Stage stage, long nanos) {
+		stageTimes[stage.ordinal()] = nanos;
+	}
+	
+	/**
+	 * Returns the total time spent in all stages of the frame
+	 * @return the total time in nanoseconds
+	 */
+	public long getTotalTime() {
+		long total = 0;
+		for (int i = 0; i < stageTimes.length; i++) {
+			total += stageTimes[i];
+		}
+		return total;
+	}
+	
+	/**
+	 * Returns the number of triangles of the rendered objects, before any were culled
+	 * @return the number of triangles submitted for rendering
+	 */
+	public int getTrianglesSubmitted() {
+		return trianglesSubmitted;
+	}
+	
+	/**
+	 * Returns the number of triangles that were rejected before rasterisation
+	 * @return the number of triangles culled
+	 */
+	public int getTrianglesCulled() {
+		return trianglesCulled;
+	}
+	
+	/**
+	 * Returns the number of samples written to the frame buffer
+	 * @return the number of pixels shaded
+	 */
+	public long getPixelsShaded() {
+		return pixelsShaded;
+	}
+	
+	/**
+	 * Sets the amount of work done by the renderer for the frame
+	 * @param trianglesSubmitted the number of triangles of the rendered objects
+	 * @param trianglesCulled the number of triangles rejected before rasterisation
+	 * @param pixelsShaded the number of samples written to the frame buffer
+	 */
+	public void setCounts(int trianglesSubmitted, int trianglesCulled, long pixelsShaded) {
+		this.trianglesSubmitted = trianglesSubmitted;
+		this.trianglesCulled = trianglesCulled;
+		this.pixelsShaded = pixelsShaded;
+	}
+	
+	/**
+	 * Draws the statistics in the top left corner of a graphics context, on top of anything already drawn
+	 * @param g the graphics context to draw to
+	 * @param framesPerSecond the number of frames being shown per second
+	 */
+	public void draw(Graphics g, double framesPerSecond) {
+		Stage[] stages = Stage.values();
+		String[] lines = new String[stages.length + 4];
+		lines[0] = String.format("%5.1f fps %7.2f ms", framesPerSecond, getTotalTime() / 1000000.0);
+		for (int i = 0; i < stages.length; i++) {
+			lines[i + 1] = String.format("%-9s %7.2f ms", stages[i], stageTimes[i] / 1000000.0);
+		}
+		lines[stages.length + 1] = String.format("Triangles %10d", trianglesSubmitted);
+		lines[stages.length + 2] = String.format("Culled    %10d", trianglesCulled);
+		lines[stages.length + 3] = String.format("Pixels    %10d", pixelsShaded);
+		g.setFont(FONT);
+		FontMetrics metrics = g.getFontMetrics();
+		int lineHeight = metrics.getHeight();
+		int width = 0;
+		for (int i = 0; i < lines.length; i++) {
+			width = Math.max(width, metrics.stringWidth(lines[i]));
+		}
+		g.setColor(BACKGROUND);
+		g.fillRect(0, 0, width + 10, lineHeight * lines.length + 10);
+		g.setColor(Color.WHITE);
+		for (int i = 0; i < lines.length; i++) {
+			g.drawString(lines[i], 5, 5 + metrics.getAscent() + lineHeight * i);
+		}
+	}
+	
+}
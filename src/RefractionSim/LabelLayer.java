@@ -0,0 +1,283 @@
+package RefractionSim;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+
+/**
+ * Class for writing the angles of light beams over a rendered frame. Characters are drawn from a strip of pre-rendered glyphs rather than laid out by the font system for every angle, the text for each angle is only formatted again when the angle changes, and angles that would overlap ones already written are moved up or down using a grid of the space already taken
+ * @author William Platt
+ *
+ */
+public class LabelLayer {
+	
+	private static final String GLYPHS = "0123456789.-E\u00B0\u03C0"; // Every character that can appear in a formatted angle
+	private static final int PADDING = 2; // Space around each glyph in the strip so that parts of glyphs outside their advance width aren't cut off
+	private static final int CELL_SIZE = 32; // Width and height in pixels of the cells of the grid used to find overlapping angles
+	private static final int[] NUDGES = {0, -1, 1, -2, 2}; // Offsets in lines of text to try in turn when an angle would overlap another; if all overlap, the angle is written where it would be without moving
+	private Font font = new Font("SansSerif", Font.PLAIN, 13);
+	private BufferedImage glyphStrip; // White glyphs on a transparent background side by side
+	private int[] glyphX = new int[GLYPHS.length()]; // x co-ordinate of each glyph's cell in the strip
+	private int[] glyphAdvance = new int[GLYPHS.length()]; // Distance to move along after each glyph
+	private int ascent;
+	private int lineHeight;
+	private double degreesHalfWidth; // Half the typical width of an angle written in degrees, used to centre angles
+	private double radiansHalfWidth; // Half the typical width of an angle written in radians
+	// The text for each angle of each object from the last frame, indexed by object ID then by the angle's index, so it only needs formatting again if the angle has changed
+	private double[][] cachedAngles = new double[0][];
+	private String[][] cachedText = new String[0][];
+	private boolean cachedInDegrees = true;
+	private static final SimulatorMetrics METRICS = SimulatorMetrics.getMetrics();
+	// Rectangles (x, y, width, height) taken by the angles written so far this frame and a grid of linked lists of the rectangles touching each cell
+	private int[] placed = new int[64 * 4];
+	private int numOfPlaced = 0;
+	private int[] cellHeads = new int[0]; // Index in the entry arrays of the first entry for each cell; -1 for an empty cell
+	private int[] entryRect = new int[256]; // Index of the rectangle of each entry
+	private int[] entryNext = new int[256]; // Index of the next entry in the same cell; -1 for the last entry
+	private int numOfEntries = 0;
+	private int gridColumns;
+	private int gridRows;
+	
+	/**
+	 * Constructor for the LabelLayer class which renders the strip of glyphs
+	 */
+	public LabelLayer() {
+		// Measure the glyphs using a context with the same hints as the frames that the angles are written on
+		BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D scratchGraphics = scratch.createGraphics();
+		scratchGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		FontMetrics metrics = scratchGraphics.getFontMetrics(font);
+		FontRenderContext frc = scratchGraphics.getFontRenderContext();
+		scratchGraphics.dispose();
+		this.ascent = metrics.getAscent();
+		this.lineHeight = metrics.getAscent() + metrics.getDescent();
+		this.degreesHalfWidth = font.getStringBounds("00.00\u00B0", frc).getWidth() / 2.0;
+		this.radiansHalfWidth = font.getStringBounds("0.000\u03C0", frc).getWidth() / 2.0;
+		int stripWidth = 0;
+		for (int i = 0; i < GLYPHS.length(); i++) {
+			glyphX[i] = stripWidth;
+			glyphAdvance[i] = metrics.charWidth(GLYPHS.charAt(i));
+			stripWidth += glyphAdvance[i] + 2 * PADDING;
+		}
+		this.glyphStrip = new BufferedImage(stripWidth, lineHeight + 2 * PADDING, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = glyphStrip.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setFont(font);
+		g.setColor(Color.WHITE);
+		for (int i = 0; i < GLYPHS.length(); i++) {
+			g.drawString(GLYPHS.substring(i, i + 1), glyphX[i] + PADDING, ascent + PADDING);
+		}
+		g.dispose();
+	}
+	
+	/**
+	 * Prepares to write the angles of a new frame by forgetting the space taken by the angles of the last frame
+	 * @param width the width of the frame in pixels
+	 * @param height the height of the frame in pixels
+	 * @param anglesInDegrees whether angles are written in degrees rather than radians
+	 */
+	public void beginFrame(int width, int height, boolean anglesInDegrees) {
+		gridColumns = width / CELL_SIZE + 1;
+		gridRows = height / CELL_SIZE + 1;
+		if (cellHeads.length < gridColumns * gridRows) {
+			cellHeads = new int[gridColumns * gridRows];
+		}
+		for (int i = 0; i < gridColumns * gridRows; i++) {
+			cellHeads[i] = -1;
+		}
+		numOfPlaced = 0;
+		numOfEntries = 0;
+		if (anglesInDegrees != cachedInDegrees) { // All of the cached text is in the wrong units
+			cachedAngles = new double[0][];
+			cachedText = new String[0][];
+			cachedInDegrees = anglesInDegrees;
+		}
+	}
+	
+	/**
+	 * Returns half the typical width of a written angle, which is subtracted from the x co-ordinate of an angle's position to centre it
+	 * @return half the typical width in pixels of an angle in the current units
+	 */
+	public double getHalfWidth() {
+		if (cachedInDegrees) {
+			return degreesHalfWidth;
+		} else {
+			return radiansHalfWidth;
+		}
+	}
+	
+	/**
+	 * Writes an angle on the frame at a position, or moved up or down if it would overlap an angle already written this frame
+	 * @param g the graphics context of the frame's image
+	 * @param objectID the ID of the beam that the angle belongs to
+	 * @param index the index of the angle in the beam's list of angles
+	 * @param angle the angle in radians
+	 * @param x the x co-ordinate of the left of the text
+	 * @param y the y co-ordinate of the baseline of the text
+	 */
+	public void writeAngle(Graphics g, int objectID, int index, double angle, int x, int y) {
+		String text = getText(objectID, index, angle);
+		int width = 0;
+		for (int i = 0; i < text.length(); i++) {
+			int glyph = GLYPHS.indexOf(text.charAt(i));
+			if (glyph == -1) { // Not in the strip, so let the font system draw the whole angle
+				width = -1;
+				break;
+			}
+			width += glyphAdvance[glyph];
+		}
+		if (width == -1) {
+			g.setFont(font);
+			g.setColor(Color.WHITE);
+			g.drawString(text, x, y);
+			return;
+		}
+		int top = y - ascent;
+		for (int i = 0; i < NUDGES.length; i++) {
+			if (!overlaps(x, top + NUDGES[i] * lineHeight, width, lineHeight)) {
+				top += NUDGES[i] * lineHeight;
+				break;
+			}
+		}
+		place(x, top, width, lineHeight);
+		int penX = x;
+		for (int i = 0; i < text.length(); i++) {
+			int glyph = GLYPHS.indexOf(text.charAt(i));
+			int cellWidth = glyphAdvance[glyph] + 2 * PADDING;
+			g.drawImage(glyphStrip, penX - PADDING, top - PADDING, penX - PADDING + cellWidth, top - PADDING + glyphStrip.getHeight(),
+					glyphX[glyph], 0, glyphX[glyph] + cellWidth, glyphStrip.getHeight(), null);
+			penX += glyphAdvance[glyph];
+		}
+	}
+	
+	/**
+	 * Returns the text for an angle, formatting it only if it has changed since the last time the same angle of the same beam was written
+	 * @param objectID the ID of the beam that the angle belongs to
+	 * @param index the index of the angle in the beam's list of angles
+	 * @param angle the angle in radians
+	 * @return the angle to 2 decimal places in degrees or 3 decimal places in multiples of pi radians with the unit symbol
+	 */
+	private String getText(int objectID, int index, double angle) {
+		if (objectID >= cachedAngles.length) {
+			double[][] newAngles = new double[objectID + 1][];
+			String[][] newText = new String[objectID + 1][];
+			System.arraycopy(cachedAngles, 0, newAngles, 0, cachedAngles.length);
+			System.arraycopy(cachedText, 0, newText, 0, cachedText.length);
+			cachedAngles = newAngles;
+			cachedText = newText;
+		}
+		if ((cachedAngles[objectID] == null) || (index >= cachedAngles[objectID].length)) {
+			int length = Math.max(index + 1, 8);
+			double[] newAngles = new double[length];
+			String[] newText = new String[length];
+			if (cachedAngles[objectID] != null) {
+				System.arraycopy(cachedAngles[objectID], 0, newAngles, 0, cachedAngles[objectID].length);
+				System.arraycopy(cachedText[objectID], 0, newText, 0, cachedText[objectID].length);
+			}
+			cachedAngles[objectID] = newAngles;
+			cachedText[objectID] = newText;
+		}
+		if ((cachedText[objectID][index] == null) || (cachedAngles[objectID][index] != angle)) {
+			METRICS.angleTextRequested(false);
+			if (cachedInDegrees) {
+				cachedText[objectID][index] = Double.toString(Math.round(18000.0 * angle / Math.PI) / 100.0) + "\u00B0"; // 2 decimal places
+			} else {
+				cachedText[objectID][index] = Double.toString(Math.round(1000.0 * angle / Math.PI) / 1000.0) + "\u03C0"; // 3 decimal places
+			}
+			cachedAngles[objectID][index] = angle;
+		} else {
+			METRICS.angleTextRequested(true);
+		}
+		return cachedText[objectID][index];
+	}
+	
+	/**
+	 * Returns true if a rectangle overlaps any rectangle taken by an angle already written this frame, only checking angles in the grid cells that the rectangle touches
+	 * @param x the x co-ordinate of the left of the rectangle
+	 * @param y the y co-ordinate of the top of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 * @return whether the rectangle overlaps an angle already written
+	 */
+	private boolean overlaps(int x, int y, int width, int height) {
+		int minColumn = toColumn(x);
+		int maxColumn = toColumn(x + width - 1);
+		int minRow = toRow(y);
+		int maxRow = toRow(y + height - 1);
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				for (int entry = cellHeads[row * gridColumns + column]; entry != -1; entry = entryNext[entry]) {
+					int r = entryRect[entry] * 4;
+					if ((x < placed[r] + placed[r + 2]) && (placed[r] < x + width) && (y < placed[r + 1] + placed[r + 3]) && (placed[r + 1] < y + height)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Records that a rectangle has been taken by an angle, adding it to every grid cell it touches
+	 * @param x the x co-ordinate of the left of the rectangle
+	 * @param y the y co-ordinate of the top of the rectangle
+	 * @param width the width of the rectangle
+	 * @param height the height of the rectangle
+	 */
+	private void place(int x, int y, int width, int height) {
+		if ((numOfPlaced + 1) * 4 > placed.length) {
+			int[] newPlaced = new int[placed.length * 2];
+			System.arraycopy(placed, 0, newPlaced, 0, placed.length);
+			placed = newPlaced;
+		}
+		placed[numOfPlaced * 4] = x;
+		placed[numOfPlaced * 4 + 1] = y;
+		placed[numOfPlaced * 4 + 2] = width;
+		placed[numOfPlaced * 4 + 3] = height;
+		int minColumn = toColumn(x);
+		int maxColumn = toColumn(x + width - 1);
+		int minRow = toRow(y);
+		int maxRow = toRow(y + height - 1);
+		for (int row = minRow; row <= maxRow; row++) {
+			for (int column = minColumn; column <= maxColumn; column++) {
+				if (numOfEntries == entryRect.length) {
+					int[] newRect = new int[entryRect.length * 2];
+					int[] newNext = new int[entryNext.length * 2];
+					System.arraycopy(entryRect, 0, newRect, 0, entryRect.length);
+					System.arraycopy(entryNext, 0, newNext, 0, entryNext.length);
+					entryRect = newRect;
+					entryNext = newNext;
+				}
+				int cell = row * gridColumns + column;
+				entryRect[numOfEntries] = numOfPlaced;
+				entryNext[numOfEntries] = cellHeads[cell];
+				cellHeads[cell] = numOfEntries;
+				numOfEntries++;
+			}
+		}
+		numOfPlaced++;
+	}
+	
+	/**
+	 * Returns the column of the grid containing an x co-ordinate; co-ordinates off the frame are put in the nearest column
+	 * @param x the x co-ordinate in pixels
+	 * @return the index of the column
+	 */
+	private int toColumn(int x) {
+		return Math.min(Math.max(x / CELL_SIZE, 0), gridColumns - 1);
+	}
+	
+	/**
+	 * Returns the row of the grid containing a y co-ordinate; co-ordinates off the frame are put in the nearest row
+	 * @param y the y co-ordinate in pixels
+	 * @return the index of the row
+	 */
+	private int toRow(int y) {
+		return Math.min(Math.max(y / CELL_SIZE, 0), gridRows - 1);
+	}
+	
+}
@@ -0,0 +1,232 @@
+package RefractionSim;
+
+/**
+ * Class for 3 by 3 column-major matrices, such as the rotations and orientations of objects. Unlike Matrix, a Mat3 is always 3 by 3, so there are no size checks, and its operations store their results in existing matrices and vectors rather than creating new ones
+ * @author William Platt
+ *
+ */
+public class Mat3 {
+	
+	private final double[] elements = new double[9]; // Columns joined end-to-end, so the element in column i and row j is elements[i * 3 + j]
+	
+	/**
+	 * Constructor for the Mat3 class which sets all elements to zero
+	 */
+	public Mat3() {
+	}
+	
+	/**
+	 * Constructor for the Mat3 class which copies a 3 by 3 Matrix
+	 * @param toCopy the matrix to copy
+	 * @throws IllegalArgumentException if toCopy is not 3 by 3
+	 */
+	public Mat3(Matrix toCopy) {
+		set(toCopy);
+	}
+	
+	/**
+	 * Gets the value of a single element in the matrix
+	 * @param i the column of the element (indices start at 0)
+	 * @param j the row of the element (indices start at 0)
+	 * @return the value of the element
+	 */
+	public double getElement(int i, int j) {
+		return elements[i * 3 + j];
+	}
+	
+	/**
+	 * Sets the value of a single element in the matrix
+	 * @param i the column of the element (indices start at 0)
+	 * @param j the row of the element (indices start at 0)
+	 * @param newValue the new value of the element
+	 */
+	public void setElement(int i, int j, double newValue) {
+		elements[i * 3 + j] = newValue;
+	}
+	
+	/**
+	 * Copies the elements of a 3 by 3 Matrix into this matrix
+	 * @param toCopy the matrix to copy
+	 * @return this matrix, so that calls can be chained
+	 * @throws IllegalArgumentException if toCopy is not 3 by 3
+	 */
+	public Mat3 set(Matrix toCopy) {
+		if ((toCopy.getM() != 3) || (toCopy.getN() != 3)) {
+			throw new IllegalArgumentException("Only a 3 by 3 matrix can be copied into a Mat3");
+		} else {
+			for (int i = 0; i < 3; i++) {
+				for (int j = 0; j < 3; j++) {
+					elements[i * 3 + j] = toCopy.getElement(i, j);
+				}
+			}
+			return this;
+		}
+	}
+	
+	/**
+	 * Copies the elements of another matrix into this one
+	 * @param toCopy the matrix to copy
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat3 set(Mat3 toCopy) {
+		System.arraycopy(toCopy.elements, 0, elements, 0, 9);
+		return this;
+	}
+	
+	/**
+	 * Sets the columns of the matrix, such as to the basis vectors of a co-ordinate system
+	 * @param column0 the new first column
+	 * @param column1 the new second column
+	 * @param column2 the new third column
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat3 setColumns(Vec3 column0, Vec3 column1, Vec3 column2) {
+		elements[0] = column0.getX();
+		elements[1] = column0.getY();
+		elements[2] = column0.getZ();
+		elements[3] = column1.getX();
+		elements[4] = column1.getY();
+		elements[5] = column1.getZ();
+		elements[6] = column2.getX();
+		elements[7] = column2.getY();
+		elements[8] = column2.getZ();
+		return this;
+	}
+	
+	/**
+	 * Copies a column of the matrix into a vector
+	 * @param i the column to copy (indices start at 0)
+	 * @param result the vector to store the column in
+	 * @return result, for convenience
+	 */
+	public Vec3 getColumn(int i, Vec3 result) {
+		return result.set(elements[i * 3], elements[i * 3 + 1], elements[i * 3 + 2]);
+	}
+	
+	/**
+	 * Sets the matrix to represent a rotation about an axis, using the same formula as Matrix.setToRotation()
+	 * @param axis the axis about which to rotate, which doesn't need to be normalised (it isn't changed)
+	 * @param angle the number of radians by which to rotate
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat3 setToRotation(Vec3 axis, double angle) {
+		double x = axis.getX();
+		double y = axis.getY();
+		double z = axis.getZ();
+		double modulus = axis.modulus();
+		if ((modulus >= 1.00000001) || (modulus <= 0.99999999)) { // Normalise the axis as Vector.normalise() would
+			x *= 1 / modulus;
+			y *= 1 / modulus;
+			z *= 1 / modulus;
+		}
+		// Store values needed multiple times so as to reduce the number of calculations
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		double oneMinusCos = 1 - cos;
+		double xsin = x * sin;
+		double ysin = y * sin;
+		double zsin = z * sin;
+		double xy = x * y * oneMinusCos;
+		double xz = x * z * oneMinusCos;
+		double yz = y * z * oneMinusCos;
+		elements[0] = x * x * oneMinusCos + cos;
+		elements[1] = xy + zsin;
+		elements[2] = xz - ysin;
+		elements[3] = xy - zsin;
+		elements[4] = y * y * oneMinusCos + cos;
+		elements[5] = yz + xsin;
+		elements[6] = xz + ysin;
+		elements[7] = yz - xsin;
+		elements[8] = z * z * oneMinusCos + cos;
+		return this;
+	}
+	
+	/**
+	 * Stores the product of this matrix and a vector in result. result may be the same vector as toMultiply
+	 * @param toMultiply the vector to pre-multiply by this matrix
+	 * @param result the vector to store the product in
+	 * @return result, for convenience
+	 */
+	public Vec3 multiply(Vec3 toMultiply, Vec3 result) {
+		double x = toMultiply.getX();
+		double y = toMultiply.getY();
+		double z = toMultiply.getZ();
+		return result.set(elements[0] * x + elements[3] * y + elements[6] * z,
+				elements[1] * x + elements[4] * y + elements[7] * z,
+				elements[2] * x + elements[5] * y + elements[8] * z);
+	}
+	
+	/**
+	 * Stores the product of the transpose of this matrix and a vector in result without transposing the matrix. For a rotation matrix this applies the inverse rotation. result may be the same vector as toMultiply
+	 * @param toMultiply the vector to pre-multiply by the transpose of this matrix
+	 * @param result the vector to store the product in
+	 * @return result, for convenience
+	 */
+	public Vec3 transposeMultiply(Vec3 toMultiply, Vec3 result) {
+		double x = toMultiply.getX();
+		double y = toMultiply.getY();
+		double z = toMultiply.getZ();
+		return result.set(elements[0] * x + elements[1] * y + elements[2] * z,
+				elements[3] * x + elements[4] * y + elements[5] * z,
+				elements[6] * x + elements[7] * y + elements[8] * z);
+	}
+	
+	/**
+	 * Sets this matrix to the product AB. Either or both of a and b may be this matrix
+	 * @param a the matrix on the left of the product
+	 * @param b the matrix on the right of the product
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat3 multiply(Mat3 a, Mat3 b) {
+		double[] p = a.elements;
+		double[] q = b.elements;
+		// Work out every element before storing any, in case this matrix is a or b
+		double e0 = p[0] * q[0] + p[3] * q[1] + p[6] * q[2];
+		double e1 = p[1] * q[0] + p[4] * q[1] + p[7] * q[2];
+		double e2 = p[2] * q[0] + p[5] * q[1] + p[8] * q[2];
+		double e3 = p[0] * q[3] + p[3] * q[4] + p[6] * q[5];
+		double e4 = p[1] * q[3] + p[4] * q[4] + p[7] * q[5];
+		double e5 = p[2] * q[3] + p[5] * q[4] + p[8] * q[5];
+		double e6 = p[0] * q[6] + p[3] * q[7] + p[6] * q[8];
+		double e7 = p[1] * q[6] + p[4] * q[7] + p[7] * q[8];
+		double e8 = p[2] * q[6] + p[5] * q[7] + p[8] * q[8];
+		elements[0] = e0;
+		elements[1] = e1;
+		elements[2] = e2;
+		elements[3] = e3;
+		elements[4] = e4;
+		elements[5] = e5;
+		elements[6] = e6;
+		elements[7] = e7;
+		elements[8] = e8;
+		return this;
+	}
+	
+	/**
+	 * Transposes the matrix in place, which inverts a rotation matrix
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat3 transpose() {
+		double temp = elements[1];
+		elements[1] = elements[3];
+		elements[3] = temp;
+		temp = elements[2];
+		elements[2] = elements[6];
+		elements[6] = temp;
+		temp = elements[5];
+		elements[5] = elements[7];
+		elements[7] = temp;
+		return this;
+	}
+	
+	/**
+	 * Returns a 3 by 3 Matrix with the same elements, for code that still uses the general matrix class
+	 * @return a new Matrix equal to this matrix
+	 */
+	public Matrix toMatrix() {
+		Matrix result = new Matrix(3, 3);
+		result.setElements(elements);
+		return result;
+	}
+	
+}
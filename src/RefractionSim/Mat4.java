@@ -0,0 +1,123 @@
+package RefractionSim;
+
+/**
+ * Class for 4 by 4 column-major matrices, which transform homogeneous points such as for projecting the scene into clip space. Unlike Matrix, a Mat4 is always 4 by 4, so there are no size checks, and its operations store their results in existing matrices and arrays rather than creating new ones
+ * @author William Platt
+ *
+ */
+public class Mat4 {
+	
+	private final double[] elements = new double[16]; // Columns joined end-to-end, so the element in column i and row j is elements[i * 4 + j]
+	private final double[] product = new double[16]; // Where products are worked out before being stored, in case the matrix being stored to is one of the matrices being multiplied
+	
+	/**
+	 * Constructor for the Mat4 class which sets all elements to zero
+	 */
+	public Mat4() {
+	}
+	
+	/**
+	 * Gets the value of a single element in the matrix
+	 * @param i the column of the element (indices start at 0)
+	 * @param j the row of the element (indices start at 0)
+	 * @return the value of the element
+	 */
+	public double getElement(int i, int j) {
+		return elements[i * 4 + j];
+	}
+	
+	/**
+	 * Sets the value of a single element in the matrix
+	 * @param i the column of the element (indices start at 0)
+	 * @param j the row of the element (indices start at 0)
+	 * @param newValue the new value of the element
+	 */
+	public void setElement(int i, int j, double newValue) {
+		elements[i * 4 + j] = newValue;
+	}
+	
+	/**
+	 * Copies the elements of another matrix into this one
+	 * @param toCopy the matrix to copy
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat4 set(Mat4 toCopy) {
+		System.arraycopy(toCopy.elements, 0, elements, 0, 16);
+		return this;
+	}
+	
+	/**
+	 * Sets every element of the matrix to zero
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat4 setZero() {
+		for (int i = 0; i < 16; i++) {
+			elements[i] = 0;
+		}
+		return this;
+	}
+	
+	/**
+	 * Sets the matrix to an affine transformation that applies a 3 by 3 linear transformation and then a translation to points whose fourth element is 1
+	 * @param linear the linear transformation, such as a rotation
+	 * @param translation the translation applied after the linear transformation
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat4 setAffine(Mat3 linear, Vec3 translation) {
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				elements[i * 4 + j] = linear.getElement(i, j);
+			}
+			elements[i * 4 + 3] = 0;
+		}
+		elements[12] = translation.getX();
+		elements[13] = translation.getY();
+		elements[14] = translation.getZ();
+		elements[15] = 1;
+		return this;
+	}
+	
+	/**
+	 * Sets this matrix to the product AB, which applies B and then A. Either or both of a and b may be this matrix
+	 * @param a the matrix on the left of the product
+	 * @param b the matrix on the right of the product
+	 * @return this matrix, so that calls can be chained
+	 */
+	public Mat4 multiply(Mat4 a, Mat4 b) {
+		double[] p = a.elements;
+		double[] q = b.elements;
+		for (int i = 0; i < 4; i++) { // Column of the product
+			for (int j = 0; j < 4; j++) { // Row of the product
+				product[i * 4 + j] = p[j] * q[i * 4] + p[4 + j] * q[i * 4 + 1] + p[8 + j] * q[i * 4 + 2] + p[12 + j] * q[i * 4 + 3];
+			}
+		}
+		System.arraycopy(product, 0, elements, 0, 16);
+		return this;
+	}
+	
+	/**
+	 * Transforms a point whose fourth element is 1, storing all four elements of the result
+	 * @param x the x co-ordinate of the point
+	 * @param y the y co-ordinate of the point
+	 * @param z the z co-ordinate of the point
+	 * @param result the array to store the transformed point in
+	 * @param r the index in result to store the first element at
+	 */
+	public void transformPoint(double x, double y, double z, double[] result, int r) {
+		result[r] = elements[0] * x + elements[4] * y + elements[8] * z + elements[12];
+		result[r + 1] = elements[1] * x + elements[5] * y + elements[9] * z + elements[13];
+		result[r + 2] = elements[2] * x + elements[6] * y + elements[10] * z + elements[14];
+		result[r + 3] = elements[3] * x + elements[7] * y + elements[11] * z + elements[15];
+	}
+	
+	/**
+	 * Copies the elements of the matrix into an array
+	 * @param result the array of at least 16 elements to store the elements in, with the columns joined end-to-end
+	 * @return result, for convenience
+	 */
+	public double[] getElements(double[] result) {
+		System.arraycopy(elements, 0, result, 0, 16);
+		return result;
+	}
+	
+}
@@ -294,7 +294,29 @@ public class Matrix {
 		if (this.m != toMultiply.getN()) {
 			throw new IllegalArgumentException("Matrix/Vector size mismatch for multiplication");
 		} else {
-			Vector result = new Vector(this.n);
+			return multiply(toMultiply, new Vector(this.n));
+		}
+	}
+	
+	/**
+	 * Stores the vector AB in result, where A is the matrix for which this method is being called and B is the
+	 * toMultiply parameter vector. Nothing is allocated, so this can be used in loops that transform many points
+	 * @param toMultiply the vector to post-multiply by (toMultiply is pre-multiplied by the matrix for which this
+	 * method is being called)
+	 * @param result the vector to store AB in, which must have as many rows as the matrix and must not be toMultiply
+	 * @return result, for convenience
+	 * @throws IllegalArgumentException if the number of rows in the toMultiply vector does not equal the number of
+	 * columns in the matrix, if result does not have as many rows as the matrix or if result is toMultiply (which
+	 * would be overwritten while it is still being read)
+	 */
+	public Vector multiply(Vector toMultiply, Vector result) {
+		if (this.m != toMultiply.getN()) {
+			throw new IllegalArgumentException("Matrix/Vector size mismatch for multiplication");
+		} else if (this.n != result.getN()) {
+			throw new IllegalArgumentException("Result vector size mismatch for multiplication");
+		} else if (result == toMultiply) {
+			throw new IllegalArgumentException("The result of a multiplication cannot be stored in the vector being multiplied");
+		} else {
 			for (int thisRow = 0; thisRow < this.n; thisRow++) {
 				double sum = 0;
 				for (int thisCol = 0; thisCol < this.m; thisCol++) {
@@ -331,7 +353,9 @@ public class Matrix {
 	/**
 	 * Returns the inverse of the matrix (if A is the original matrix and B is the inverse, AB = BA = I where I is
 	 * the identity matrix (all elements are zero except for the diagonal from top left to bottom right on which the
-	 * elements have the value 1)
+	 * elements have the value 1). 2 by 2, 3 by 3 and 4 by 4 matrices are inverted with unrolled formulae; larger
+	 * matrices are inverted by LU decomposition, which takes time proportional to the cube of the size rather than
+	 * the factorial time of expanding cofactors
 	 * @return the inverse of the matrix
 	 * @throws Exception if the matrix is not square (the number of columns equals the number of rows if a matrix
 	 * is square) or the matrix has no inverse
@@ -343,41 +367,130 @@ public class Matrix {
 			Matrix inverse = new Matrix(this.m, this.n);
 			double determinant;
 			if (this.m == 2) { // Method for 2 by 2 matrices
-				if (!this.detKnown) {
-					this.det = this.det2By2();
-					this.detKnown = true;
-				}
-				determinant = this.det;
+				determinant = this.det2By2();
 				if (determinant == 0) { // Preventing runtime error of dividing by zero
 					throw new Exception("Singular matrix has no inverse");
 				} else {
-					inverse.mat[0][0] = this.mat[1][1];
-					inverse.mat[1][1] = this.mat[0][0];
-					inverse.mat[0][1] = - this.mat[0][1];
-					inverse.mat[1][0] = - this.mat[1][0];
-					inverse = inverse.scale(1 / determinant);
-					System.out.println("Determinant:" + determinant);
+					double reciprocal = 1 / determinant;
+					inverse.mat[0][0] = this.mat[1][1] * reciprocal;
+					inverse.mat[1][1] = this.mat[0][0] * reciprocal;
+					inverse.mat[0][1] = - this.mat[0][1] * reciprocal;
+					inverse.mat[1][0] = - this.mat[1][0] * reciprocal;
 				}
+			} else if (this.m == 3) {
+				determinant = this.inverse3By3(inverse);
+			} else if (this.m == 4) {
+				determinant = this.inverse4By4(inverse);
 			} else {
-				Matrix cofactors = this.cofactors();
-				if (!this.detKnown) {
-					this.det = this.detFromCofactors(cofactors);	/* More efficient than det() because the
-																		required cofactors have already been
-																		calculated */
-					this.detKnown = true;
-				}
-				determinant = this.det;
-				if (determinant == 0) {
-					throw new Exception("Singular matrix has no inverse");
-				} else {
-					inverse = cofactors.transpose().scale(1 / determinant);	/* Find the adjugate and scale by the
-																			reciprocal of the determinant */
+				double[][] lu = new double[this.m][this.m];
+				int[] pivots = new int[this.m];
+				determinant = this.decompose(lu, pivots);
+				if (determinant != 0) {
+					double[] column = new double[this.m];
+					for (int i = 0; i < this.m; i++) { // Column i of the inverse is the solution x of Ax = e, where e is column i of the identity matrix
+						for (int j = 0; j < this.m; j++) {
+							column[j] = 0;
+						}
+						column[i] = 1;
+						solveDecomposed(lu, pivots, column, inverse.mat[i]);
+					}
 				}
 			}
+			if (determinant == 0) {
+				throw new Exception("Singular matrix has no inverse");
+			}
+			this.det = determinant;
+			this.detKnown = true;
+			inverse.det = 1 / determinant; // det(A^-1) = 1 / det(A)
+			inverse.detKnown = true;
 			return inverse;
 		}
 	}
 	
+	/**
+	 * Stores the inverse of a 3 by 3 matrix in inverse by scaling its adjugate (the transpose of its matrix of
+	 * cofactors), with every cofactor written out so that no sub-matrices are created
+	 * @param inverse the 3 by 3 matrix to store the inverse in; it is left unchanged if the matrix is singular
+	 * @return the determinant of the matrix, which is 0 if the matrix has no inverse
+	 */
+	private double inverse3By3(Matrix inverse) {
+		// This private method is only called when the matrix is already known to be 3 by 3, so we don't need a check here
+		// aRC is the element in row R and column C
+		double a00 = this.mat[0][0], a01 = this.mat[1][0], a02 = this.mat[2][0];
+		double a10 = this.mat[0][1], a11 = this.mat[1][1], a12 = this.mat[2][1];
+		double a20 = this.mat[0][2], a21 = this.mat[1][2], a22 = this.mat[2][2];
+		// Cofactors of the first column, which are also needed for the determinant
+		double c00 = a11 * a22 - a12 * a21;
+		double c10 = a02 * a21 - a01 * a22;
+		double c20 = a01 * a12 - a02 * a11;
+		double determinant = a00 * c00 + a10 * c10 + a20 * c20; // Expand down the first column
+		if (determinant != 0) {
+			double reciprocal = 1 / determinant;
+			// inverse.mat[C][R] is the element in row R and column C of the inverse
+			inverse.mat[0][0] = c00 * reciprocal;
+			inverse.mat[1][0] = c10 * reciprocal;
+			inverse.mat[2][0] = c20 * reciprocal;
+			inverse.mat[0][1] = (a12 * a20 - a10 * a22) * reciprocal;
+			inverse.mat[1][1] = (a00 * a22 - a02 * a20) * reciprocal;
+			inverse.mat[2][1] = (a02 * a10 - a00 * a12) * reciprocal;
+			inverse.mat[0][2] = (a10 * a21 - a11 * a20) * reciprocal;
+			inverse.mat[1][2] = (a01 * a20 - a00 * a21) * reciprocal;
+			inverse.mat[2][2] = (a00 * a11 - a01 * a10) * reciprocal;
+		}
+		return determinant;
+	}
+	
+	/**
+	 * Stores the inverse of a 4 by 4 matrix in inverse. The cofactors are built from the twelve 2 by 2 determinants
+	 * of the top two rows and the bottom two rows, so each is only calculated once
+	 * @param inverse the 4 by 4 matrix to store the inverse in; it is left unchanged if the matrix is singular
+	 * @return the determinant of the matrix, which is 0 if the matrix has no inverse
+	 */
+	private double inverse4By4(Matrix inverse) {
+		// This private method is only called when the matrix is already known to be 4 by 4, so we don't need a check here
+		// aRC is the element in row R and column C
+		double a00 = this.mat[0][0], a01 = this.mat[1][0], a02 = this.mat[2][0], a03 = this.mat[3][0];
+		double a10 = this.mat[0][1], a11 = this.mat[1][1], a12 = this.mat[2][1], a13 = this.mat[3][1];
+		double a20 = this.mat[0][2], a21 = this.mat[1][2], a22 = this.mat[2][2], a23 = this.mat[3][2];
+		double a30 = this.mat[0][3], a31 = this.mat[1][3], a32 = this.mat[2][3], a33 = this.mat[3][3];
+		// 2 by 2 determinants of pairs of columns of the top two rows
+		double s0 = a00 * a11 - a10 * a01;
+		double s1 = a00 * a12 - a10 * a02;
+		double s2 = a00 * a13 - a10 * a03;
+		double s3 = a01 * a12 - a11 * a02;
+		double s4 = a01 * a13 - a11 * a03;
+		double s5 = a02 * a13 - a12 * a03;
+		// 2 by 2 determinants of pairs of columns of the bottom two rows
+		double c5 = a22 * a33 - a32 * a23;
+		double c4 = a21 * a33 - a31 * a23;
+		double c3 = a21 * a32 - a31 * a22;
+		double c2 = a20 * a33 - a30 * a23;
+		double c1 = a20 * a32 - a30 * a22;
+		double c0 = a20 * a31 - a30 * a21;
+		double determinant = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0; // Laplace expansion along the top two rows
+		if (determinant != 0) {
+			double reciprocal = 1 / determinant;
+			// inverse.mat[C][R] is the element in row R and column C of the inverse
+			inverse.mat[0][0] = (a11 * c5 - a12 * c4 + a13 * c3) * reciprocal;
+			inverse.mat[1][0] = (- a01 * c5 + a02 * c4 - a03 * c3) * reciprocal;
+			inverse.mat[2][0] = (a31 * s5 - a32 * s4 + a33 * s3) * reciprocal;
+			inverse.mat[3][0] = (- a21 * s5 + a22 * s4 - a23 * s3) * reciprocal;
+			inverse.mat[0][1] = (- a10 * c5 + a12 * c2 - a13 * c1) * reciprocal;
+			inverse.mat[1][1] = (a00 * c5 - a02 * c2 + a03 * c1) * reciprocal;
+			inverse.mat[2][1] = (- a30 * s5 + a32 * s2 - a33 * s1) * reciprocal;
+			inverse.mat[3][1] = (a20 * s5 - a22 * s2 + a23 * s1) * reciprocal;
+			inverse.mat[0][2] = (a10 * c4 - a11 * c2 + a13 * c0) * reciprocal;
+			inverse.mat[1][2] = (- a00 * c4 + a01 * c2 - a03 * c0) * reciprocal;
+			inverse.mat[2][2] = (a30 * s4 - a31 * s2 + a33 * s0) * reciprocal;
+			inverse.mat[3][2] = (- a20 * s4 + a21 * s2 - a23 * s0) * reciprocal;
+			inverse.mat[0][3] = (- a10 * c3 + a11 * c1 - a12 * c0) * reciprocal;
+			inverse.mat[1][3] = (a00 * c3 - a01 * c1 + a02 * c0) * reciprocal;
+			inverse.mat[2][3] = (- a30 * s3 + a31 * s1 - a32 * s0) * reciprocal;
+			inverse.mat[3][3] = (a20 * s3 - a21 * s1 + a22 * s0) * reciprocal;
+		}
+		return determinant;
+	}
+	
 	/**
 	 * Returns the transpose of the matrix in which the columns of the original become the rows of the transpose and
 	 * the rows of the original become the columns of the transpose (equivalent to reflecting the elements in the
@@ -398,7 +511,8 @@ public class Matrix {
 	}
 	
 	/**
-	 * Returns the determinant of the matrix
+	 * Returns the determinant of the matrix. 2 by 2, 3 by 3 and 4 by 4 determinants are written out in full; larger
+	 * matrices use LU decomposition
 	 * @return the determinant of the matrix
 	 * @throws IllegalArgumentException if the matrix is not square (the number of columns equals the number of rows
 	 * if a matrix is square)
@@ -406,8 +520,16 @@ public class Matrix {
 	public double det() throws IllegalArgumentException {
 		if (this.m == this.n) {
 			if (!this.detKnown) {
+				if (this.m == 2) {
+					this.det = this.det2By2();
+				} else if (this.m == 3) {
+					this.det = this.det3By3();
+				} else if (this.m == 4) {
+					this.det = this.det4By4();
+				} else {
+					this.det = this.decompose(new double[this.m][this.m], new int[this.m]);
+				}
 				this.detKnown = true;
-				this.det = this.expand();
 			}
 			return this.det;
 		} else {
@@ -416,68 +538,116 @@ public class Matrix {
 	}
 	
 	/**
-	 * Returns the matrix of cofactors corresponding to the matrix for which this method is being called
-	 * @return the matrix of cofactors corresponding to the matrix for which this method is being called
+	 * Returns the vector x such that Ax = b, where A is the (square) matrix for which this method is being called.
+	 * This is quicker and more accurate than multiplying b by the inverse of A, so it should be preferred when only
+	 * the solution is needed
+	 * @param b the vector on the right-hand side of the equation
+	 * @return the solution x
+	 * @throws IllegalArgumentException if the matrix is not square, b doesn't have as many rows as the matrix or
+	 * the matrix is singular (so there isn't a unique solution)
 	 */
-	private Matrix cofactors() {
-		Matrix cofactors = new Matrix(this.m, this.n);
-		for (int i = 0; i < this.m; i++) {
-			for (int j = 0; j < this.n; j++) {
-				if ((i + j) % 2 == 0) {
-					cofactors.mat[i][j] = this.crop(i, j).expand();
-				} else {
-					cofactors.mat[i][j] = - this.crop(i, j).expand();
-				}
+	public Vector solve(Vector b) {
+		if (this.m != this.n) {
+			throw new IllegalArgumentException("Only a square matrix can be used to solve a system of equations");
+		} else if (b.getN() != this.n) {
+			throw new IllegalArgumentException("Matrix/Vector size mismatch for solving");
+		} else {
+			double[][] lu = new double[this.m][this.m];
+			int[] pivots = new int[this.m];
+			double determinant = this.decompose(lu, pivots);
+			if (!this.detKnown) {
+				this.det = determinant; // The determinant comes free with the decomposition
+				this.detKnown = true;
+			}
+			if (determinant == 0) {
+				throw new IllegalArgumentException("A singular matrix has no unique solution");
+			} else {
+				double[] x = new double[this.m];
+				solveDecomposed(lu, pivots, b.getElements(), x);
+				Vector result = new Vector(this.m);
+				result.setElements(x);
+				return result;
 			}
 		}
-		return cofactors;
 	}
 	
 	/**
-	 * An alternative to the det() method which resuses the cofactors calculated for the inverse method so that they 
-	 * don't need to be recalculated
-	 * @param cofactors the matrix of cofactors corresponding to the matrix for which this method is being called
-	 * @return the determinant of the matrix for which this method is being called
-	 * @throws IllegalArgumentException if the matrix of cofactors doesn't have the same number of rows as the
-	 * matrix for which this method is called
+	 * Factorises the (square) matrix as PA = LU by Gaussian elimination with partial pivoting, where P reorders the
+	 * rows, L is lower triangular with ones on its diagonal and U is upper triangular. Choosing the largest
+	 * available pivot in each column keeps rounding errors from growing
+	 * @param lu the array to store L and U in, indexed by row and then column (unlike mat); U is stored on and
+	 * above the diagonal and L below it, because the ones on L's diagonal don't need storing
+	 * @param pivots the array to store P in; pivots[i] is the row of the matrix that became row i
+	 * @return the determinant of the matrix (0 if it is singular, in which case lu and pivots are incomplete)
 	 */
-	private double detFromCofactors(Matrix cofactors) {
-		if (this.m != cofactors.m) {
-			throw new IllegalArgumentException("A matrix and its matrix of cofactors must have the same number of rows");
-		} else {
-			double determinant = 0;
-			for (int i = 0; i < this.m; i++) {
-				determinant += this.mat[i][0] * cofactors.mat[i][0];
+	private double decompose(double[][] lu, int[] pivots) {
+		// This private method is only called when the matrix is already known to be square, so we don't need a check here
+		int size = this.m;
+		for (int row = 0; row < size; row++) {
+			pivots[row] = row;
+			for (int col = 0; col < size; col++) {
+				lu[row][col] = this.mat[col][row];
+			}
+		}
+		double determinant = 1;
+		for (int k = 0; k < size; k++) {
+			// Find the row with the largest element in column k, on or below the diagonal
+			int pivotRow = k;
+			double largest = Math.abs(lu[k][k]);
+			for (int row = k + 1; row < size; row++) {
+				if (Math.abs(lu[row][k]) > largest) {
+					largest = Math.abs(lu[row][k]);
+					pivotRow = row;
+				}
+			}
+			if (largest == 0) { // Every remaining element in the column is zero, so the columns are linearly dependent
+				return 0;
+			}
+			if (pivotRow != k) {
+				double[] tempRow = lu[k];
+				lu[k] = lu[pivotRow];
+				lu[pivotRow] = tempRow;
+				int tempPivot = pivots[k];
+				pivots[k] = pivots[pivotRow];
+				pivots[pivotRow] = tempPivot;
+				determinant = -determinant; // Swapping two rows negates the determinant
+			}
+			double pivot = lu[k][k];
+			determinant *= pivot; // The determinant of a triangular matrix is the product of its diagonal
+			for (int row = k + 1; row < size; row++) {
+				double factor = lu[row][k] / pivot;
+				lu[row][k] = factor; // Element of L
+				for (int col = k + 1; col < size; col++) {
+					lu[row][col] -= factor * lu[k][col];
+				}
 			}
-			return determinant;
 		}
+		return determinant;
 	}
 	
 	/**
-	 * Recursive method for finding the determinant of a matrix by finding the determinants of sub-matrices
-	 * @return the determinant of the matrix for which the method is being called
+	 * Solves Ax = b using the LU decomposition of A by forward substitution (Ly = Pb) and then back substitution
+	 * (Ux = y)
+	 * @param lu L and U as stored by decompose()
+	 * @param pivots P as stored by decompose()
+	 * @param b the right-hand side of the equation (it isn't changed)
+	 * @param x the array to store the solution in, which may not be b
 	 */
-	private double expand() {
-		// This is a private method only called by other methods which first checked that the matrix is square, so this check is not needed here
-		if (this.m == 3) {
-			return this.det3By3();
-		} else if (this.m == 2) {
-			return this.det2By2();
-		} else {
-			Matrix reducedMatrix = this.eliminated();
-			double determinant = 0;
-			for (int i = 0; i < reducedMatrix.m; i++) {
-				if (reducedMatrix.mat[i][0] == 0) { /* We know that the determinant will not change if the
-														element is zero */
-					continue;
-				}
-				if (i % 2 == 0) {
-					determinant += reducedMatrix.mat[i][0] * reducedMatrix.crop(i, 0).expand();
-				} else {
-					determinant -= reducedMatrix.mat[i][0] * reducedMatrix.crop(i, 0).expand();
-				}
+	private static void solveDecomposed(double[][] lu, int[] pivots, double[] b, double[] x) {
+		int size = lu.length;
+		for (int i = 0; i < size; i++) {
+			double sum = b[pivots[i]];
+			for (int j = 0; j < i; j++) {
+				sum -= lu[i][j] * x[j];
+			}
+			x[i] = sum;
+		}
+		for (int i = size - 1; i >= 0; i--) {
+			double sum = x[i];
+			for (int j = i + 1; j < size; j++) {
+				sum -= lu[i][j] * x[j];
 			}
-			return determinant;
+			x[i] = sum / lu[i][i];
 		}
 	}
 	
@@ -544,34 +714,6 @@ public class Matrix {
 		return result;
 	}
 	
-	/**
-	 * Returns a sub-matrix (known as a minor) of the matrix for which this method is called by removing the column and the row
-	 * specified
-	 * @param col the column to crop in order to create the sub-matrix
-	 * @param row the row to crop in order to create the sub-matrix
-	 * @return the matrix for which the method is called but with a column and a row removed
-	 */
-	private Matrix crop(int col, int row) {
-		Matrix result = new Matrix(this.m - 1, this.n - 1);
-		for (int i = 0; i < col; i++) {
-			for (int j = 0; j < row; j++) {
-				result.mat[i][j] = this.mat[i][j];
-			}
-			for (int j = row + 1; j < this.n; j++) {
-				result.mat[i][j - 1] = this.mat[i][j];
-			}
-		}
-		for (int i = col + 1; i < this.m; i++) {
-			for (int j = 0; j < row; j++) {
-				result.mat[i - 1][j] = this.mat[i][j];
-			}
-			for (int j = row + 1; j < this.n; j++) {
-				result.mat[i - 1][j - 1] = this.mat[i][j];
-			}
-		}
-		return result;
-	}
-	
 	/**
 	 * Quick non-recursive method for calculating the determinant of a 3 by 3 matrix
 	 * @return the determinant of the matrix (must be 3 by 3)
@@ -595,6 +737,22 @@ public class Matrix {
 		return this.mat[0][0] * this.mat[1][1] - this.mat[1][0] * this.mat[0][1];
 	}
 	
+	/**
+	 * Quick non-recursive method for calculating the determinant of a 4 by 4 matrix by Laplace expansion along the
+	 * top two rows
+	 * @return the determinant of the matrix (must be 4 by 4)
+	 */
+	private double det4By4() {
+		// This private method is only called when the matrix is already known to be 4 by 4, so we don't need a check here
+		// The products of 2 by 2 determinants of the top two rows and the complementary columns of the bottom two rows
+		return (this.mat[0][0] * this.mat[1][1] - this.mat[0][1] * this.mat[1][0]) * (this.mat[2][2] * this.mat[3][3] - this.mat[2][3] * this.mat[3][2])
+				- (this.mat[0][0] * this.mat[2][1] - this.mat[0][1] * this.mat[2][0]) * (this.mat[1][2] * this.mat[3][3] - this.mat[1][3] * this.mat[3][2])
+				+ (this.mat[0][0] * this.mat[3][1] - this.mat[0][1] * this.mat[3][0]) * (this.mat[1][2] * this.mat[2][3] - this.mat[1][3] * this.mat[2][2])
+				+ (this.mat[1][0] * this.mat[2][1] - this.mat[1][1] * this.mat[2][0]) * (this.mat[0][2] * this.mat[3][3] - this.mat[0][3] * this.mat[3][2])
+				- (this.mat[1][0] * this.mat[3][1] - this.mat[1][1] * this.mat[3][0]) * (this.mat[0][2] * this.mat[2][3] - this.mat[0][3] * this.mat[2][2])
+				+ (this.mat[2][0] * this.mat[3][1] - this.mat[2][1] * this.mat[3][0]) * (this.mat[0][2] * this.mat[1][3] - this.mat[0][3] * this.mat[1][2]);
+	}
+	
 	/**
 	 * Returns the EulerTriple (three euler angles) representing the orientation of an object when this matrix is interpreted as converting points from an object space to the corresponding upright space
 	 * @return the orientation/angular displacement represented by the matrix when interpreted as converting points from object space to upright space in EulerTriple form
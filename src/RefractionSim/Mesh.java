@@ -8,10 +8,17 @@ package RefractionSim;
 public class Mesh {
 	
 	private int[][] faces; // All faces are triangles; the first index defines a triangle and the second defines a vertex number
-	private Vector[] verts; // Each vector in this array has 3 rows
-	private Vector[] normals;
+	private Vec3[] verts;
+	private Vec3[] normals;
 	private double[] ds; // ds[i] is the d value for faces[i] where d = p.n (n is the normal to a plane and p is a point in that plane)
-	private Vector[] boxVerts; // A list of the vertices for the smallest box that will contain all of the mesh's vertices (the box is aligned to the object space axes)
+	private Vec3[] boxVerts; // A list of the vertices for the smallest box that will contain all of the mesh's vertices (the box is aligned to the object space axes)
+	private int version = 0; // Incremented whenever the vertices are changed so that copies of them can be kept up to date
+	private Mesh[] levels; // Levels of detail in order of decreasing detail; levels[0] is this mesh, which is the most detailed and is the one used for tracing beams
+	private int segmentsPerTurn = 0; // The number of edges a full turn of the curved surface is divided into (0 if the mesh has no curved surfaces), which measures how detailed the level is
+	// Tessellations used for the levels of detail of curved primitives, from most to least detailed
+	private static final int[][] SPHERE_LEVELS = {{46, 47}, {30, 31}, {14, 15}, {10, 11}}; // {segments, rings}; rings must be odd (see generateSphere()) and segments 2 more than a multiple of 4 so that no vertices lie on the plane x = 0, where the concave lens is folded
+	private static final int[] HALF_CYLINDER_LEVELS = {64, 32, 16, 8}; // Segments
+	private static final Profiler PROFILER = Profiling.getProfiler(); // Records the construction of meshes when profiling
 	
 	/**
 	 * An enumerated type that specifies the shapes for which the Mesh class can generate geometry
@@ -47,24 +54,53 @@ public class Mesh {
 	 * @param faces a list of the faces of the object; each item/face contains 3 items which are the indices of the vertices in the verts list that make up the face
 	 * @param verts a list of vertices; each vertex is represented by a position in 3-D space
 	 */
-	public Mesh(int[][] faces, Vector[] verts) { // Will be read in from a file
+	public Mesh(int[][] faces, Vec3[] verts) { // Will be read in from a file
+		Object meshEvent = PROFILER.beginMesh();
+		this.levels = new Mesh[] {this}; // A single level of detail
 		this.faces = faces;
 		this.verts = verts;
-		normals = new Vector[faces.length]; // One normal for each face
+		normals = new Vec3[faces.length]; // One normal for each face
 		ds = new double[faces.length]; // One d value for each face
 		for (int i = 0; i < faces.length; i++) {
 			normals[i] = this.normal(faces[i]); // Calculate the normal to the face
-			ds[i] = verts[faces[i][0]].dotProduct(normals[i]); // Calculate the d value for the face
+			ds[i] = verts[faces[i][0]].dot(normals[i]); // Calculate the d value for the face
 		}
 		calcBoxVerts(); // Calculates and stores the vertices of the arbitrarily orientated bounding box
+		PROFILER.endMesh(meshEvent, null, 0, faces.length, verts.length);
 	}
 	
 	/**
-	 * A constructor for the mesh class for primitive geometries
+	 * A constructor for the mesh class for primitive geometries which also generates less detailed versions of curved primitives for rendering at a distance
 	 * @param shape the shape represented by the new mesh
 	 * @throws IllegalArgumentException if shape is null
 	 */
 	public Mesh(Primitive shape) {
+		this(shape, 0); // This mesh is the most detailed level
+		int numOfLevels = 1;
+		if ((shape == Primitive.SPHERE) || (shape == Primitive.CONVEX_LENS) || (shape == Primitive.CONCAVE_LENS)) {
+			numOfLevels = SPHERE_LEVELS.length;
+		} else if (shape == Primitive.HALF_CYLINDER) {
+			numOfLevels = HALF_CYLINDER_LEVELS.length;
+		}
+		levels = new Mesh[numOfLevels];
+		levels[0] = this;
+		for (int i = 1; i < numOfLevels; i++) {
+			levels[i] = new Mesh(shape, i);
+		}
+	}
+	
+	/**
+	 * A constructor for the mesh class for a single level of detail of a primitive geometry
+	 * @param shape the shape represented by the new mesh
+	 * @param level the level of detail where 0 is the most detailed (flat-faced shapes only have level 0)
+	 * @throws IllegalArgumentException if shape is null
+	 */
+	private Mesh(Primitive shape, int level) {
+		Object meshEvent = PROFILER.beginMesh();
+		this.levels = new Mesh[] {this}; // The other levels are added by the public constructor
+		if (shape == null) {
+			throw new IllegalArgumentException("Mesh constructor cannot take a null primitive");
+		}
 		switch (shape) {
 			case CUBE:
 				generateCube();
@@ -77,21 +113,21 @@ public class Mesh {
 				generatePrism();
 				break;
 			case SPHERE:
-				generateSphere();
+				generateSphere(SPHERE_LEVELS[level][0], SPHERE_LEVELS[level][1]);
 				break;
 			case CONVEX_LENS:
-				generateSphere();
+				generateSphere(SPHERE_LEVELS[level][0], SPHERE_LEVELS[level][1]);
 				scale(0.6, 2, 2); // Increase the size (to allow a better demonstration of how the lens works) and then squash the sphere along the x-axis
 				break;
 			case CONCAVE_LENS:
-				generateSphere();
+				generateSphere(SPHERE_LEVELS[level][0], SPHERE_LEVELS[level][1]);
 				scale(0.6, 2, 2); // Increase the size and squash along the x-axis
 				
 				for (int i = 0; i < verts.length; i++) {
-					if (verts[i].getElement(0) < -0.0001) { // Don't move points in the middle of the x-axis
-						verts[i].setElement(0, verts[i].getElement(0) + 0.8); // Move points on the left to the right. This part still bulges out to the left, but when it is on the right it is concave
-					} else if (verts[i].getElement(0) > 0.0001) {
-						verts[i].setElement(0, verts[i].getElement(0) - 0.8); // Move points on the right to the left.
+					if (verts[i].getX() < -0.0001) { // Don't move points in the middle of the x-axis
+						verts[i].setX(verts[i].getX() + 0.8); // Move points on the left to the right. This part still bulges out to the left, but when it is on the right it is concave
+					} else if (verts[i].getX() > 0.0001) {
+						verts[i].setX(verts[i].getX() - 0.8); // Move points on the right to the left.
 					}
 				}
 				// The faces are 'inside out', so the ordering of the vertices must be reversed in order to make the normals point the correct way
@@ -103,18 +139,42 @@ public class Mesh {
 				}
 				break;
 			case HALF_CYLINDER:
-				generateHalfCylinder();
+				generateHalfCylinder(HALF_CYLINDER_LEVELS[level]);
 				break;
 			default:
 				throw new IllegalArgumentException("Mesh constructor cannot take a null primitive");
 		}
-		normals = new Vector[faces.length];
+		normals = new Vec3[faces.length];
 		ds = new double[faces.length];
 		for (int i = 0; i < faces.length; i++) {
 			normals[i] = normal(faces[i]); // Calculate the normal for the face
-			ds[i] = verts[faces[i][0]].dotProduct(normals[i]); // Calculate the value of d for the face
+			ds[i] = verts[faces[i][0]].dot(normals[i]); // Calculate the value of d for the face
 		}
 		calcBoxVerts(); // Calculate and store the vertices of the AOBB
+		PROFILER.endMesh(meshEvent, shape.toString(), level, faces.length, verts.length);
+	}
+	
+	/**
+	 * A constructor for the Mesh class for a single level of detail of a sphere with radius 1 and any number of faces, such as the very detailed spheres used to benchmark beam tracing
+	 * @param segments the number of faces around each ring
+	 * @param rings the number of rings of faces from bottom to top, which should be odd (see generateSphere())
+	 * @throws IllegalArgumentException if segments is less than 3 or rings is less than 3
+	 */
+	public Mesh(int segments, int rings) {
+		Object meshEvent = PROFILER.beginMesh();
+		this.levels = new Mesh[] {this}; // A single level of detail
+		if ((segments < 3) || (rings < 3)) {
+			throw new IllegalArgumentException("A sphere must have at least 3 segments and 3 rings");
+		}
+		generateSphere(segments, rings);
+		normals = new Vec3[faces.length];
+		ds = new double[faces.length];
+		for (int i = 0; i < faces.length; i++) {
+			normals[i] = normal(faces[i]); // Calculate the normal for the face
+			ds[i] = verts[faces[i][0]].dot(normals[i]); // Calculate the value of d for the face
+		}
+		calcBoxVerts(); // Calculate and store the vertices of the AOBB
+		PROFILER.endMesh(meshEvent, Primitive.SPHERE.toString(), 0, faces.length, verts.length);
 	}
 	
 	/**
@@ -156,38 +216,15 @@ public class Mesh {
 	 * Creates the vertices and faces that define a cube of side length 2 units
 	 */
 	private void generateCube() {
-		verts = new Vector[] {new Vector(3), new Vector(3), new Vector(3), new Vector(3), new Vector(3), new Vector(3), new Vector(3), new Vector(3)};
-		verts[0].setElement(0, -1);
-		verts[0].setElement(1, -1);
-		verts[0].setElement(2, -1);
-		
-		verts[1].setElement(0, 1);
-		verts[1].setElement(1, -1);
-		verts[1].setElement(2, -1);
-		
-		verts[2].setElement(0, -1);
-		verts[2].setElement(1, -1);
-		verts[2].setElement(2, 1);
-		
-		verts[3].setElement(0, 1);
-		verts[3].setElement(1, -1);
-		verts[3].setElement(2, 1);
-		
-		verts[4].setElement(0, -1);
-		verts[4].setElement(1, 1);
-		verts[4].setElement(2, -1);
-		
-		verts[5].setElement(0, 1);
-		verts[5].setElement(1, 1);
-		verts[5].setElement(2, -1);
-		
-		verts[6].setElement(0, -1);
-		verts[6].setElement(1, 1);
-		verts[6].setElement(2, 1);
-		
-		verts[7].setElement(0, 1);
-		verts[7].setElement(1, 1);
-		verts[7].setElement(2, 1);
+		verts = new Vec3[8];
+		verts[0] = new Vec3(-1, -1, -1);
+		verts[1] = new Vec3(1, -1, -1);
+		verts[2] = new Vec3(-1, -1, 1);
+		verts[3] = new Vec3(1, -1, 1);
+		verts[4] = new Vec3(-1, 1, -1);
+		verts[5] = new Vec3(1, 1, -1);
+		verts[6] = new Vec3(-1, 1, 1);
+		verts[7] = new Vec3(1, 1, 1);
 		
 		faces = new int[][] {{0, 3, 2}, {0, 1, 3}, {0, 4, 5}, {0, 5, 1}, {0, 2, 6}, {0, 6, 4}, {2, 7, 6}, {2, 3, 7}, {3, 1, 5}, {3, 5, 7}, {4, 7, 5}, {4, 6, 7}}; // List the vertices of each face by index in verts. Vertices must be listed in clockwise order from outside of the shape so that the faces pointing away from the camera can be culled or shaded differently
 	}
@@ -197,31 +234,31 @@ public class Mesh {
 	 */
 	private void generatePrism() {
 		double halfAltitude = Math.sin(Math.PI / 3); // The cross-section is an equilateral triangle with sides of length 2 units. The altitude is the height of the triangle with one edge horizontal
-		verts = new Vector[] {new Vector(3), new Vector(3), new Vector(3), new Vector(3), new Vector(3), new Vector(3)};
-		verts[0].setElements(new double[] {-1, -halfAltitude, -1});
-		verts[1].setElements(new double[] {0, halfAltitude, -1});
-		verts[2].setElements(new double[] {1, -halfAltitude, -1});
+		verts = new Vec3[6];
+		verts[0] = new Vec3(-1, -halfAltitude, -1);
+		verts[1] = new Vec3(0, halfAltitude, -1);
+		verts[2] = new Vec3(1, -halfAltitude, -1);
 		// Use the same triangle of vertices but offset by 2 units along the z-axis
-		verts[3].setElements(verts[0]);
-		verts[4].setElements(verts[1]);
-		verts[5].setElements(verts[2]);
-		verts[3].setElement(2, 1);
-		verts[4].setElement(2, 1);
-		verts[5].setElement(2, 1);
+		verts[3] = new Vec3(verts[0]);
+		verts[4] = new Vec3(verts[1]);
+		verts[5] = new Vec3(verts[2]);
+		verts[3].setZ(1);
+		verts[4].setZ(1);
+		verts[5].setZ(1);
 		
 		faces = new int[][] {{0, 1, 2}, {0, 5, 3}, {0, 2, 5}, {0, 3, 4}, {0, 4, 1}, {1, 4, 5}, {1, 5, 2}, {3, 5, 4}};
 	}
 	
 	/**
 	 * Creates the vertices and faces that define an approximation of a sphere with radius 1
+	 * @param segments the number of faces around each ring
+	 * @param rings the number of rings of faces from bottom to top; use an odd number of rings of faces so that halfway up the sphere is the middle of a ring and not a loop of edges
 	 */
-	private void generateSphere() {
-		int segments = 14;
-		int rings = 15; // Use an odd number of rings of faces so that halfway up the sphere is the middle of a ring and not a loop of edges
-		verts = new Vector[segments * (rings - 1) + 2]; // There are rings + 1 rings of vertices, but the first and last of these are each a single vertex
+	private void generateSphere(int segments, int rings) {
+		segmentsPerTurn = segments;
+		verts = new Vec3[segments * (rings - 1) + 2]; // There are rings + 1 rings of vertices, but the first and last of these are each a single vertex
 		faces = new int[2 * segments * (rings - 1)][3]; // Apart from the first and last, each ring has segments number of square faces, so 2 * segments triangular faces. The first and last each have segments triangular faces
-		verts[0] = new Vector(3);
-		verts[0].setElement(1, -1); // The lowest point of the sphere
+		verts[0] = new Vec3(0, -1, 0); // The lowest point of the sphere
 		for (int i = 0; i < segments; i++) {
 			if (i == segments - 1) {
 				faces[i] = new int[] {0, i + 1, 1}; // The last face involves the last vertex in the second ring and loops back to the first vertex in the second ring
@@ -239,8 +276,7 @@ public class Mesh {
 			for (int s = 0; s < segments; s++) {
 				double x = modulus * Math.cos(heading); // x co-ordinate for the next vertex
 				double z = modulus * Math.sin(heading); // z co-ordinate for the next vertex
-				verts[segments * r + s + 1] = new Vector(3);
-				verts[segments * r + s + 1].setElements(new double[] {x, y, z});
+				verts[segments * r + s + 1] = new Vec3(x, y, z);
 				heading += headingIncrement;
 			}
 			// Make faces between the vertices just added and the next ring of vertices to be added
@@ -259,8 +295,7 @@ public class Mesh {
 			}
 			pitch += pitchIncrement;
 		}
-		verts[verts.length - 1] = new Vector(3);
-		verts[verts.length - 1].setElement(1, 1); // The last and highest vertex
+		verts[verts.length - 1] = new Vec3(0, 1, 0); // The last and highest vertex
 		for (int i = 0; i < segments; i++) {
 			if (i == segments - 1) { // Last face completes the ring and includes the last vertex of the second to last ring
 				faces[2 * segments + segments * (2 * rings - 5) + i] = new int[] {segments * (rings - 2) + 1 + i, segments * (rings - 1) + 1, segments * (rings - 2) + 1};
@@ -272,20 +307,19 @@ public class Mesh {
 	
 	/**
 	 * Creates the vertices and faces that define the approximation of a cylinder of radius 1 and height 2 that has been cut in vertically in half
+	 * @param segments the number of vertices around each semi-circle
 	 */
-	private void generateHalfCylinder() {
-		int segments = 32;
-		verts = new Vector[segments * 2];
+	private void generateHalfCylinder(int segments) {
+		segmentsPerTurn = 2 * (segments - 1); // There are segments - 1 edges around half a turn
+		verts = new Vec3[segments * 2];
 		faces = new int[4 * segments - 4][3];
 		double heading = 0;
 		double headingIncrement = Math.PI / (segments - 1); // The increment in heading between segments of vertices
 		for (int s = 0; s < segments; s++) {
 			double x = Math.cos(heading); // x co-ordinate of points on the segment
 			double z = Math.sin(heading); // z co-ordinate of points on the segment
-			verts[s] = new Vector(3);
-			verts[s].setElements(new double[] {x, -1, z}); // Vertex on the bottom semi-circle
-			verts[s + segments] = new Vector(3);
-			verts[s + segments].setElements(new double[] {x, 1, z}); // Vertex on the top semi-circle
+			verts[s] = new Vec3(x, -1, z); // Vertex on the bottom semi-circle
+			verts[s + segments] = new Vec3(x, 1, z); // Vertex on the top semi-circle
 			heading += headingIncrement;
 		}
 		for (int i = 0; i < segments - 1; i++) { // Vertical faces approximating the curved surface
@@ -302,27 +336,64 @@ public class Mesh {
 	}
 	
 	/**
-	 * Stretches the geometry parallel to the object space axes
+	 * Stretches the geometry parallel to the object space axes, including all less detailed levels
 	 * @param xScale the scale factor of enlargement parallel to the x-axis
 	 * @param yScale the scale factor of enlargement parallel to the y-axis
 	 * @param zScale the scale factor of enlargement parallel to the z-axis
 	 */
 	public void scale(double xScale, double yScale, double zScale) {
-		// Create a matrix that will transform vertices to their new positions
-		Matrix scaleMatrix = new Matrix(3, 3);
-		scaleMatrix.setElement(0, 0, xScale);
-		scaleMatrix.setElement(1, 1, yScale);
-		scaleMatrix.setElement(2, 2, zScale);
-		for (int i = 0; i < verts.length; i++) {
-			verts[i] = scaleMatrix.multiply(verts[i]);
+		for (int i = 1; i < levels.length; i++) {
+			levels[i].scale(xScale, yScale, zScale);
+		}
+		for (int i = 0; i < verts.length; i++) { // Scale each vertex in place rather than multiplying it by a scale matrix, which would create a new vector for every vertex
+			verts[i].set(verts[i].getX() * xScale, verts[i].getY() * yScale, verts[i].getZ() * zScale);
+		}
+		version++;
+	}
+	
+	/**
+	 * Returns the number of levels of detail the mesh has
+	 * @return the number of levels of detail (1 for meshes without curved surfaces)
+	 */
+	public int getNumOfLevels() {
+		return levels.length;
+	}
+	
+	/**
+	 * Returns a level of detail of the mesh; all levels have the same shape and size but use different numbers of faces
+	 * @param level the level of detail where 0 is the most detailed
+	 * @return the mesh for that level of detail (this mesh for level 0)
+	 * @throws IllegalArgumentException if the level doesn't exist
+	 */
+	public Mesh getLevel(int level) {
+		if ((level < 0) || (level >= levels.length)) {
+			throw new IllegalArgumentException("Mesh does not have that level of detail");
+		} else {
+			return levels[level];
 		}
 	}
 	
+	/**
+	 * Returns the number of edges a full turn of the mesh's curved surface is divided into, which is used to choose a level of detail that doesn't look faceted
+	 * @return the number of edges per full turn of the curved surface; 0 if the mesh has no curved surfaces
+	 */
+	public int getSegmentsPerTurn() {
+		return segmentsPerTurn;
+	}
+	
+	/**
+	 * Returns a number that changes whenever the vertices of the mesh are changed
+	 * @return the version of the mesh's vertices
+	 */
+	public int getVersion() {
+		return version;
+	}
+	
 	/**
 	 * Returns a list of the vertices for the mesh's arbitrarily orientated bounding box (AOBB)
 	 * @return the AOBB vertices for the geometry
 	 */
-	public Vector[] getBoxVerts() {
+	public Vec3[] getBoxVerts() {
 		return boxVerts;
 	}
 	
@@ -331,46 +402,38 @@ public class Mesh {
 	 */
 	private void calcBoxVerts() {
 		if (verts != null) {
-			double minX = verts[0].getElement(0);
+			double minX = verts[0].getX();
 			double maxX = minX;
-			double minY = verts[0].getElement(1);
+			double minY = verts[0].getY();
 			double maxY = minY;
-			double minZ = verts[0].getElement(2);
+			double minZ = verts[0].getZ();
 			double maxZ = minZ;
 			for (int i = 1; i < verts.length; i++) {
-				if (verts[i].getElement(0) < minX) {
-					minX = verts[i].getElement(0);
-				} else if (verts[i].getElement(0) > maxX) {
-					maxX = verts[i].getElement(0);
+				if (verts[i].getX() < minX) {
+					minX = verts[i].getX();
+				} else if (verts[i].getX() > maxX) {
+					maxX = verts[i].getX();
 				}
-				if (verts[i].getElement(1) < minY) {
-					minY = verts[i].getElement(1);
-				} else if (verts[i].getElement(1) > maxY) {
-					maxY = verts[i].getElement(1);
+				if (verts[i].getY() < minY) {
+					minY = verts[i].getY();
+				} else if (verts[i].getY() > maxY) {
+					maxY = verts[i].getY();
 				}
-				if (verts[i].getElement(2) < minZ) {
-					minZ = verts[i].getElement(2);
-				} else if (verts[i].getElement(2) > maxZ) {
-					maxZ = verts[i].getElement(2);
+				if (verts[i].getZ() < minZ) {
+					minZ = verts[i].getZ();
+				} else if (verts[i].getZ() > maxZ) {
+					maxZ = verts[i].getZ();
 				}
 			}
-			Vector[] boxVerts = new Vector[8];
-			boxVerts[0] = new Vector(3);
-			boxVerts[0].setElements(new double[] {minX, minY, minZ});
-			boxVerts[1] = new Vector(3);
-			boxVerts[1].setElements(new double[] {maxX, minY, minZ});
-			boxVerts[2] = new Vector(3);
-			boxVerts[2].setElements(new double[] {minX, minY, maxZ});
-			boxVerts[3] = new Vector(3);
-			boxVerts[3].setElements(new double[] {maxX, minY, maxZ});
-			boxVerts[4] = new Vector(3);
-			boxVerts[4].setElements(new double[] {minX, maxY, minZ});
-			boxVerts[5] = new Vector(3);
-			boxVerts[5].setElements(new double[] {maxX, maxY, minZ});
-			boxVerts[6] = new Vector(3);
-			boxVerts[6].setElements(new double[] {minX, maxY, maxZ});
-			boxVerts[7] = new Vector(3);
-			boxVerts[7].setElements(new double[] {maxX, maxY, maxZ});
+			Vec3[] boxVerts = new Vec3[8];
+			boxVerts[0] = new Vec3(minX, minY, minZ);
+			boxVerts[1] = new Vec3(maxX, minY, minZ);
+			boxVerts[2] = new Vec3(minX, minY, maxZ);
+			boxVerts[3] = new Vec3(maxX, minY, maxZ);
+			boxVerts[4] = new Vec3(minX, maxY, minZ);
+			boxVerts[5] = new Vec3(maxX, maxY, minZ);
+			boxVerts[6] = new Vec3(minX, maxY, maxZ);
+			boxVerts[7] = new Vec3(maxX, maxY, maxZ);
 			this.boxVerts = boxVerts;
 		} else {
 			this.boxVerts = null;
@@ -389,7 +452,7 @@ public class Mesh {
 	 * Returns the list of vertices
 	 * @return the list of vertices
 	 */
-	public Vector[] getVerts() {
+	public Vec3[] getVerts() {
 		return this.verts;
 	}
 	
@@ -397,7 +460,7 @@ public class Mesh {
 	 * Returns the list of normals
 	 * @return a list of normals corresponding to the faces with the same subscripts
 	 */
-	public Vector[] getNormals() {
+	public Vec3[] getNormals() {
 		return this.normals;
 	}
 	
@@ -414,10 +477,10 @@ public class Mesh {
 	 * @param face the face which the normal needs to be calculated for
 	 * @return the unit length normal to face
 	 */
-	private Vector normal(int[] face) {
-		Vector point0 = verts[face[0]];
-		Vector point1 = verts[face[1]];
-		Vector point2 = verts[face[2]];
-		return point1.subtract(point0).crossProduct(point2.subtract(point0)).normalise();
+	private Vec3 normal(int[] face) {
+		Vec3 point0 = verts[face[0]];
+		Vec3 edge0 = new Vec3(verts[face[1]]).subtract(point0);
+		Vec3 edge1 = new Vec3(verts[face[2]]).subtract(point0);
+		return edge0.cross(edge0, edge1).normalise(); // Reuse edge0 for the normal rather than creating another vector
 	}
 }
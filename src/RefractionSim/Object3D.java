@@ -10,9 +10,16 @@ public class Object3D {
 	protected int ID = -1; // Has no ID until added to the viewport's object list, so is set to -1
 	protected Mesh mesh;
 	protected Color color;
-	protected Matrix orientation = new Matrix(3, 3); // Represents the object to upright transformation
+	protected Matrix orientation = new Matrix(3, 3); // Represents the object to upright transformation; out of date while orientationStale is true
+	protected Quaternion quaternion; // The orientation as a unit quaternion, which is null unless the object stores its orientation as a quaternion
+	private boolean orientationStale = false; // Whether the orientation matrix needs rebuilding from the quaternion
 	protected Vector origin = new Vector(3);
-	protected Vector[] boxVerts; // Vertices of the arbitrarily orientated bounding box (AOBB)
+	protected Vec3[] boxVerts; // Vertices of the arbitrarily orientated bounding box (AOBB)
+	private double[] worldBoxVerts; // Cached world space co-ordinates of the AOBB vertices stored as consecutive x, y, z triples. The mesh's own vertices aren't cached in world space, because the renderer maps them straight from object space to clip space
+	private Mesh worldVertsMesh; // The mesh that worldBoxVerts was calculated from
+	private int worldVertsMeshVersion; // The version of worldVertsMesh that worldBoxVerts was calculated from
+	private boolean poseChanged = true; // Whether the origin or orientation has changed since worldBoxVerts was calculated
+	private static final SimulatorMetrics METRICS = SimulatorMetrics.getMetrics();
 	
 	/**
 	 * Constructor for the Object3D class
@@ -27,7 +34,7 @@ public class Object3D {
 		if (mesh != null) { // Objects such as the camera may not have a mesh and won't need an AOBB
 			boxVerts = mesh.getBoxVerts();
 		} else {
-			boxVerts = new Vector[0]; // Empty list of Vectors
+			boxVerts = new Vec3[0]; // Empty list of vertices
 		}
 	}
 	
@@ -59,7 +66,7 @@ public class Object3D {
 	 * Returns the a list of the vertices of the object's arbitrarily orientated bounding box (AOBB)
 	 * @return the vertices of the object's bounding box
 	 */
-	public Vector[] getBoxVerts() {
+	public Vec3[] getBoxVerts() {
 		return this.boxVerts;
 	}
 	
@@ -83,6 +90,7 @@ public class Object3D {
 			for (int i = 0; i < displacement.getN(); i++) {
 				this.origin.setElement(i, this.origin.getElement(i) + displacement.getElement(i));
 			}
+			poseChanged = true;
 		}
 	}
 	
@@ -104,6 +112,7 @@ public class Object3D {
 			throw new IllegalArgumentException("The origin of an object must be a 3-D vector");
 		} else  {
 			this.origin = origin;
+			poseChanged = true;
 		}
 	}
 	
@@ -115,16 +124,39 @@ public class Object3D {
 	public void rotate(Matrix rotation) {
 		if ((rotation.getM() != 3) || (rotation.getN() != 3)) {
 			throw new IllegalArgumentException("A 3 by 3 matrix is needed to rotate an object");
+		} else if (quaternion != null) {
+			rotate(new Quaternion().set(rotation));
 		} else {
 			this.orientation = rotation.multiply(this.orientation);
+			poseChanged = true;
+			orientationChanged();
 		}
 	}
 	
 	/**
-	 * Returns the matrix representing the orientation of the object relative to world/upright space
+	 * Rotates an object about its origin by a rotation given as a unit quaternion. If the object stores its orientation as a quaternion, the two are composed and the result is normalised, so rounding errors can't build up however many times the object is rotated
+	 * @param rotation a unit quaternion representing the angular displacement of the new orientation from the old one
+	 */
+	public void rotate(Quaternion rotation) {
+		if (quaternion != null) {
+			quaternion.multiply(rotation, quaternion).normalise();
+			orientationStale = true;
+			poseChanged = true;
+			orientationChanged();
+		} else {
+			rotate(rotation.toMatrix());
+		}
+	}
+	
+	/**
+	 * Returns the matrix representing the orientation of the object relative to world/upright space. If the object stores its orientation as a quaternion, the matrix is rebuilt from it the first time it is needed after a rotation, and a new matrix is used so that matrices already returned aren't changed
 	 * @return the 3 by 3 matrix representing the object's orientation relative to world/upright space
 	 */
 	public Matrix getOrientation() {
+		if (orientationStale) {
+			this.orientation = quaternion.toMatrix();
+			orientationStale = false;
+		}
 		return this.orientation;
 	}
 	
@@ -138,26 +170,123 @@ public class Object3D {
 			throw new IllegalArgumentException("The orientation of an object must be a 3 by 3 matrix");
 		} else {
 			this.orientation = orientation;
+			if (quaternion != null) {
+				quaternion.set(orientation);
+			}
+			orientationStale = false;
+			poseChanged = true;
+			orientationChanged();
 		}
 	}
 	
+	/**
+	 * Sets whether the object stores its orientation as a unit quaternion rather than only as a matrix. Objects that are rotated many times, such as the camera and the ray box, should use a quaternion: composing rotation matrices lets rounding errors build up until the orientation is no longer a rotation (skewing and scaling the object), whereas the quaternion is normalised after every rotation
+	 * @param useQuaternion true to store the orientation as a quaternion, false to store it only as a matrix
+	 */
+	public void setQuaternionOrientation(boolean useQuaternion) {
+		if (useQuaternion && (quaternion == null)) {
+			quaternion = new Quaternion().set(this.orientation);
+			this.orientation = quaternion.toMatrix(); // Any drift in the old matrix is removed
+			poseChanged = true;
+		} else if (!useQuaternion && (quaternion != null)) {
+			getOrientation(); // Bring the matrix up to date before the quaternion is dropped
+			quaternion = null;
+		}
+	}
+	
+	/**
+	 * Returns whether the object stores its orientation as a unit quaternion
+	 * @return true if the orientation is stored as a quaternion, false if it is only stored as a matrix
+	 */
+	public boolean isQuaternionOrientation() {
+		return quaternion != null;
+	}
+	
 	/**
 	 * Rotates the object about the origin of world space; the object's origin and rotation are affected. This method assumes the object to be facing the world's origin
 	 * @param heading the angle of rotation clockwise around the world's y-axis
 	 * @param pitch the angle of rotation clockwise around the object's x-axis
 	 */
 	public void orbit(double heading, double pitch) {
-		Matrix verticalRot = new Matrix(3, 3);
-		verticalRot.setToRotation(this.orientation.getVector(0), pitch); // Rotation about the object's x-axis in world space
-		Matrix horizontalRot = new Matrix(3, 3);
-		Vector verticalAxis = new Vector(3);
-		verticalAxis.setElements(new double[] {0, 1, 0}); // World's y-axis
-		horizontalRot.setToRotation(verticalAxis, heading);
-		// Rotate about the world origin without changing the object's orientation
-		setOrigin(horizontalRot.multiply(verticalRot.multiply(this.origin)));
-		// Rotate about the object's origin (changing the orientation and not the origin)
-		this.rotate(verticalRot);
-		this.rotate(horizontalRot);
+		if (quaternion != null) {
+			Quaternion verticalRot = new Quaternion().setToRotation(quaternion.transform(new Vec3(1, 0, 0), new Vec3()), pitch); // Rotation about the object's x-axis in world space
+			Quaternion horizontalRot = new Quaternion().setToRotation(new Vec3(0, 1, 0), heading); // Rotation about the world's y-axis
+			Quaternion orbitRot = new Quaternion().multiply(horizontalRot, verticalRot); // The vertical rotation followed by the horizontal one
+			// Rotate about the world origin without changing the object's orientation
+			setOrigin(orbitRot.transform(new Vec3(this.origin), new Vec3()).toVector());
+			// Rotate about the object's origin (changing the orientation and not the origin)
+			this.rotate(orbitRot);
+		} else {
+			Matrix verticalRot = new Matrix(3, 3);
+			verticalRot.setToRotation(this.orientation.getVector(0), pitch); // Rotation about the object's x-axis in world space
+			Matrix horizontalRot = new Matrix(3, 3);
+			Vector verticalAxis = new Vector(3);
+			verticalAxis.setElements(new double[] {0, 1, 0}); // World's y-axis
+			horizontalRot.setToRotation(verticalAxis, heading);
+			// Rotate about the world origin without changing the object's orientation
+			setOrigin(horizontalRot.multiply(verticalRot.multiply(this.origin)));
+			// Rotate about the object's origin (changing the orientation and not the origin)
+			this.rotate(verticalRot);
+			this.rotate(horizontalRot);
+		}
+	}
+	
+	/**
+	 * Called whenever the object's orientation has been changed through the methods of this class, so that subclasses can keep anything that depends on the orientation up to date
+	 */
+	protected void orientationChanged() {
+	}
+	
+	/**
+	 * Marks the cached world space vertices as out of date; this must be called whenever the origin or orientation is changed other than through the methods of this class
+	 */
+	protected void invalidateWorldVerts() {
+		poseChanged = true;
+	}
+	
+	/**
+	 * Returns the world space co-ordinates of the vertices of the object's arbitrarily orientated bounding box, which are only recalculated when the object's position, orientation or mesh has changed since they were last calculated
+	 * @return the world space co-ordinates of the bounding box vertices as consecutive x, y, z triples in the same order as getBoxVerts(); the array is never changed once it has been returned
+	 */
+	public double[] getWorldBoxVerts() {
+		updateWorldVerts();
+		return worldBoxVerts;
+	}
+	
+	/**
+	 * Recalculates the cached world space bounding box vertices if the object has moved or rotated or its mesh has changed. A new array is used each time rather than overwriting the old one, because arrays that have already been returned may be being rendered on another thread
+	 */
+	private void updateWorldVerts() {
+		if ((worldBoxVerts != null) && (!poseChanged) && (worldVertsMesh == mesh) && ((mesh == null) || (worldVertsMeshVersion == mesh.getVersion()))) {
+			METRICS.worldVertsRequested(true);
+			return; // The cache is up to date
+		}
+		METRICS.worldVertsRequested(false);
+		double[] m = getOrientation().getElements(); // Columns of the object to upright matrix joined end-to-end
+		double[] o = origin.getElements();
+		worldBoxVerts = new double[boxVerts.length * 3];
+		toWorldSpace(boxVerts, m, o, worldBoxVerts);
+		worldVertsMesh = mesh;
+		worldVertsMeshVersion = (mesh == null) ? 0 : mesh.getVersion();
+		poseChanged = false;
+	}
+	
+	/**
+	 * Maps points from object space to world space (via upright space) into an array of co-ordinates
+	 * @param points the points in object space
+	 * @param m the elements of the object to upright matrix with its columns joined end-to-end
+	 * @param o the elements of the object's origin in world space
+	 * @param result the array to store the world space points in as consecutive x, y, z triples
+	 */
+	private static void toWorldSpace(Vec3[] points, double[] m, double[] o, double[] result) {
+		for (int i = 0; i < points.length; i++) {
+			double x = points[i].getX();
+			double y = points[i].getY();
+			double z = points[i].getZ();
+			result[i * 3] = m[0] * x + m[3] * y + m[6] * z + o[0];
+			result[i * 3 + 1] = m[1] * x + m[4] * y + m[7] * z + o[1];
+			result[i * 3 + 2] = m[2] * x + m[5] * y + m[8] * z + o[2];
+		}
 	}
 	
 }
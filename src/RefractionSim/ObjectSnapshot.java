@@ -0,0 +1,158 @@
+package RefractionSim;
+import java.awt.Color;
+
+/**
+ * Class for copies of the parts of a 3-D object that are needed to render it, taken on the event dispatch thread so that the object can be rendered on another thread while the user carries on changing the scene
+ * @author William Platt
+ *
+ */
+public class ObjectSnapshot {
+	
+	private int ID;
+	private int[][][] faces; // The faces of each level of detail of the object's mesh, shared with the mesh because faces are never changed once a mesh has been created
+	private Vec3[][] verts; // The object space vertices of each level of detail, shared with the mesh because a mesh's vertices are only changed while it is being created
+	private Mat4 model = new Mat4(); // The transformation from object space to world space, which is copied from the object's orientation and origin
+	private int[] segmentsPerTurn; // How finely each level of detail divides the mesh's curved surfaces (see Mesh.getSegmentsPerTurn())
+	private double[] worldBoxVerts;
+	private Color color;
+	private boolean beam; // Whether the object is a light beam, which is rendered without shading
+	private String label; // The label of a ray box; null for any other object
+	private double[] angles; // Angles of a light beam that are to be displayed (empty for any other object or if the beam's angles are hidden)
+	private Vec3[] anglePositions; // Points in world space at which to write the angles
+	
+	/**
+	 * Constructor for the ObjectSnapshot class which copies the current state of an object
+	 * @param object the 3-D object to copy, which must have a mesh
+	 */
+	public ObjectSnapshot(Object3D object) {
+		this.ID = object.getID();
+		Mesh mesh = object.getMesh();
+		int numOfLevels = mesh.getNumOfLevels();
+		this.faces = new int[numOfLevels][][];
+		this.verts = new Vec3[numOfLevels][];
+		this.segmentsPerTurn = new int[numOfLevels];
+		for (int i = 0; i < numOfLevels; i++) {
+			faces[i] = mesh.getLevel(i).getFaces();
+			verts[i] = mesh.getLevel(i).getVerts();
+			segmentsPerTurn[i] = mesh.getLevel(i).getSegmentsPerTurn();
+		}
+		model.setAffine(new Mat3(object.getOrientation()), new Vec3(object.getOrigin()));
+		this.worldBoxVerts = object.getWorldBoxVerts();
+		this.color = object.getColor();
+		this.beam = object instanceof Beam;
+		if (object instanceof RayBox) {
+			this.label = ((RayBox)(object)).getLabel();
+		}
+		int numOfAngles = 0;
+		if (beam && ((Beam)(object)).getAnglesVisible()) {
+			numOfAngles = ((Beam)(object)).getNumOfAngles();
+		}
+		// The beam's lists of angles are overwritten when it is next recalculated, so they must be copied
+		this.angles = new double[numOfAngles];
+		this.anglePositions = new Vec3[numOfAngles];
+		if (numOfAngles > 0) {
+			System.arraycopy(((Beam)(object)).getAngles(), 0, angles, 0, numOfAngles);
+			System.arraycopy(((Beam)(object)).getAnglePositions(), 0, anglePositions, 0, numOfAngles);
+		}
+	}
+	
+	/**
+	 * Returns the ID of the object, which is its index in the viewport's objectList
+	 * @return the object's ID
+	 */
+	public int getID() {
+		return ID;
+	}
+	
+	/**
+	 * Returns the number of levels of detail of the object's mesh
+	 * @return the number of levels of detail
+	 */
+	public int getNumOfLevels() {
+		return faces.length;
+	}
+	
+	/**
+	 * Returns the faces of a level of detail of the object's mesh
+	 * @param level the level of detail where 0 is the most detailed
+	 * @return the faces of that level as triples of indices of vertices
+	 */
+	public int[][] getFaces(int level) {
+		return faces[level];
+	}
+	
+	/**
+	 * Returns the object space vertices of a level of detail of the object's mesh
+	 * @param level the level of detail where 0 is the most detailed
+	 * @return the vertices of that level in object space, which must not be changed
+	 */
+	public Vec3[] getVerts(int level) {
+		return verts[level];
+	}
+	
+	/**
+	 * Returns the transformation from the object's object space to world space at the time the snapshot was taken
+	 * @return the matrix that rotates points by the object's orientation and then translates them by its origin, which must not be changed
+	 */
+	public Mat4 getModel() {
+		return model;
+	}
+	
+	/**
+	 * Returns how finely a level of detail divides the mesh's curved surfaces
+	 * @param level the level of detail where 0 is the most detailed
+	 * @return the number of edges per full turn of the curved surfaces; 0 if there are no curved surfaces
+	 */
+	public int getSegmentsPerTurn(int level) {
+		return segmentsPerTurn[level];
+	}
+	
+	/**
+	 * Returns the world space co-ordinates of the vertices of the object's arbitrarily orientated bounding box
+	 * @return the world space co-ordinates of the bounding box vertices as consecutive x, y, z triples
+	 */
+	public double[] getWorldBoxVerts() {
+		return worldBoxVerts;
+	}
+	
+	/**
+	 * Returns the object's colour
+	 * @return the colour of the object
+	 */
+	public Color getColor() {
+		return color;
+	}
+	
+	/**
+	 * Returns true if the object is a light beam
+	 * @return whether the object is a light beam
+	 */
+	public boolean isBeam() {
+		return beam;
+	}
+	
+	/**
+	 * Returns the label of the object if it is a ray box
+	 * @return the label of the ray box; null if the object is not a ray box
+	 */
+	public String getLabel() {
+		return label;
+	}
+	
+	/**
+	 * Returns the angles of a light beam that are to be displayed
+	 * @return the angles in order from the ray box (empty if the object is not a beam or its angles are hidden)
+	 */
+	public double[] getAngles() {
+		return angles;
+	}
+	
+	/**
+	 * Returns the positions in world space at which to display the angles of a light beam
+	 * @return the positions in the same order as the angles
+	 */
+	public Vec3[] getAnglePositions() {
+		return anglePositions;
+	}
+	
+}
@@ -0,0 +1,228 @@
+package RefractionSim;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Class for scenes that are rendered straight to images without a window, such as when rendering scenes in batches from the command line. Each offscreen renderer has its own scene, so different scenes can be rendered on different threads at the same time
+ * @author William Platt
+ *
+ */
+public class OffscreenRenderer {
+	
+	private Object3D[] objectList = new Object3D[100]; // Array of all objects in the scene where an object's index in this list is equal to its ID, as in the viewport. Unlike the viewport's, it grows when it is full
+	private int objectListLength = 0;
+	private int worldMaterial = 0;
+	private boolean orthographic = false;
+	private boolean anglesInDegrees = true;
+	private Color bgColor;
+	private Renderer renderer = null; // Kept between images of the same size so that its buffers can be reused
+	
+	/**
+	 * Constructor for the OffscreenRenderer class which sets up the same starting scene as the viewport: a camera 6 units in front of the origin and a cube-shaped target with no ray boxes
+	 * @param bgColor the colour of pixels where there is no object
+	 */
+	public OffscreenRenderer(Color bgColor) {
+		this.bgColor = bgColor;
+		Object3D camera = new Object3D(null, null);
+		Vector cameraOffset = new Vector(3);
+		cameraOffset.setElement(2, -6);
+		camera.displace(cameraOffset);
+		camera.setQuaternionOrientation(true); // The camera is orbited every time the mouse is dragged, so its orientation is kept as a normalised quaternion rather than a matrix that drifts
+		objectList[0] = camera;
+		camera.setID(0);
+		objectList[1] = new Target(Mesh.Primitive.CUBE, new Color(50, 200, 100, 100), 2);
+		objectList[1].setID(1);
+		objectListLength = 2;
+	}
+	
+	/**
+	 * Returns the camera, which can be moved and rotated like any other 3-D object
+	 * @return the camera object
+	 */
+	public Object3D getCamera() {
+		return objectList[0];
+	}
+	
+	/**
+	 * Orbits the camera around the world's origin
+	 * @param heading the angle of rotation clockwise around the world's y-axis
+	 * @param pitch the angle of rotation clockwise around the camera's x-axis
+	 */
+	public void orbitCamera(double heading, double pitch) {
+		objectList[0].orbit(heading, pitch);
+	}
+	
+	/**
+	 * Moves the camera towards or away from the world's origin without changing its direction from the origin
+	 * @param distance the new distance of the camera from the world's origin
+	 * @throws IllegalArgumentException if distance is not positive
+	 */
+	public void setCameraDistance(double distance) {
+		if (distance <= 0) {
+			throw new IllegalArgumentException("The camera must be a positive distance from the origin");
+		} else {
+			Vector origin = objectList[0].getOrigin();
+			objectList[0].setOrigin(origin.scale(distance / origin.modulus()));
+		}
+	}
+	
+	/**
+	 * Returns the target object
+	 * @return the target object
+	 */
+	public Target getTarget() {
+		return (Target)(objectList[1]);
+	}
+	
+	/**
+	 * Replaces the target with one of a different shape but the same colour and material
+	 * @param newShape the shape of the new target
+	 */
+	public void setTargetShape(Mesh.Primitive newShape) {
+		Target oldTarget = (Target)(objectList[1]);
+		objectList[1] = new Target(newShape, oldTarget.getColor(), oldTarget.getMaterial());
+		objectList[1].setID(1);
+	}
+	
+	/**
+	 * Sets the material of the target
+	 * @param materialID the index of the material in the viewport's list of materials
+	 * @throws IllegalArgumentException if there is no material with index materialID
+	 */
+	public void setTargetMaterial(int materialID) {
+		if ((materialID < 0) || (materialID >= Viewport.getNumOfMaterials())) {
+			throw new IllegalArgumentException("There is no material with index " + materialID);
+		} else {
+			((Target)(objectList[1])).setMaterial(materialID);
+		}
+	}
+	
+	/**
+	 * Returns the index of the material of the surroundings
+	 * @return the index of the world's material in the viewport's list of materials
+	 */
+	public int getWorldMaterial() {
+		return worldMaterial;
+	}
+	
+	/**
+	 * Sets the material of the surroundings
+	 * @param materialID the index of the material in the viewport's list of materials
+	 * @throws IllegalArgumentException if there is no material with index materialID
+	 */
+	public void setWorldMaterial(int materialID) {
+		if ((materialID < 0) || (materialID >= Viewport.getNumOfMaterials())) {
+			throw new IllegalArgumentException("There is no material with index " + materialID);
+		} else {
+			worldMaterial = materialID;
+		}
+	}
+	
+	/**
+	 * Sets whether orthographic projection is used rather than perspective projection
+	 * @param orthographic whether to use orthographic projection
+	 */
+	public void setOrthographic(boolean orthographic) {
+		this.orthographic = orthographic;
+	}
+	
+	/**
+	 * Sets whether angles are written in degrees rather than radians
+	 * @param anglesInDegrees whether to write angles in degrees
+	 */
+	public void setAnglesInDegrees(boolean anglesInDegrees) {
+		this.anglesInDegrees = anglesInDegrees;
+	}
+	
+	/**
+	 * Adds a ray box and its beam to the scene
+	 * @param newRayBox the ray box to add along with its beam
+	 */
+	public void addRayBox(RayBox newRayBox) {
+		if (objectListLength + 2 > objectList.length) { // Scenes rendered offscreen, such as benchmark scenes, can have more ray boxes than fit in the viewport
+			objectList = Arrays.copyOf(objectList, objectList.length * 2);
+		}
+		newRayBox.setID(objectListLength);
+		objectList[objectListLength] = newRayBox;
+		Beam newBeam = newRayBox.getLightBeam();
+		newBeam.setID(objectListLength + 1);
+		objectList[objectListLength + 1] = newBeam;
+		objectListLength += 2;
+	}
+	
+	/**
+	 * Returns the number of ray boxes in the scene
+	 * @return the number of ray boxes
+	 */
+	public int getNumOfRayBoxes() {
+		return (objectListLength - 2) / 2;
+	}
+	
+	/**
+	 * Returns one of the ray boxes in the scene
+	 * @param index the index of the ray box in the order that the ray boxes were added, starting from 0
+	 * @return the ray box
+	 * @throws IllegalArgumentException if there is no ray box with that index
+	 */
+	public RayBox getRayBox(int index) {
+		if ((index < 0) || (index >= getNumOfRayBoxes())) {
+			throw new IllegalArgumentException("There is no ray box with index " + index);
+		} else {
+			return (RayBox)(objectList[2 + 2 * index]);
+		}
+	}
+	
+	/**
+	 * Renders the scene as seen by the camera to an image with one sample per pixel
+	 * @param width the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 * @return the rendered image including ray box labels and angles
+	 */
+	public BufferedImage render(int width, int height) {
+		return render(width, height, 1);
+	}
+	
+	/**
+	 * Renders the scene as seen by the camera to an image. The paths of all beams are recalculated first because ray boxes can be moved directly without the renderer knowing
+	 * @param width the width of the image in pixels
+	 * @param height the height of the image in pixels
+	 * @param renderScale the number of samples along each axis per pixel (see Renderer.render())
+	 * @return the rendered image including ray box labels and angles
+	 * @throws IllegalArgumentException if width or height is not positive
+	 */
+	public BufferedImage render(int width, int height, double renderScale) {
+		if ((width <= 0) || (height <= 0)) {
+			throw new IllegalArgumentException("An image must be at least 1 pixel wide and 1 pixel high");
+		} else {
+			updateBeams();
+			if ((renderer == null) || (renderer.getOutputWidth() != width) || (renderer.getOutputHeight() != height)) {
+				renderer = new Renderer(width, height, bgColor);
+			}
+			RenderedFrame frame = new RenderedFrame(width, height);
+			renderer.render(getSnapshot(), frame, renderScale);
+			return frame.getImage();
+		}
+	}
+	
+	/**
+	 * Recalculates the paths of all beams through the target
+	 */
+	public void updateBeams() {
+		Target target = (Target)(objectList[1]);
+		for (int i = 2; i < objectListLength; i++) {
+			if (objectList[i] instanceof Beam) {
+				((Beam)(objectList[i])).update(target, worldMaterial);
+			}
+		}
+	}
+	
+	/**
+	 * Takes a copy of the scene as it is now, which can be rendered any number of times by a renderer without the beams being recalculated (see updateBeams())
+	 * @return the snapshot of the scene with nothing selected
+	 */
+	public SceneSnapshot getSnapshot() {
+		return new SceneSnapshot(objectList, objectListLength, orthographic, anglesInDegrees, -1); // Nothing is selected, so no outline is drawn
+	}
+	
+}
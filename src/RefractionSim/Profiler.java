@@ -0,0 +1,88 @@
+package RefractionSim;
+
+/**
+ * Interface for recording the stages of rendering and tracing so that they can be examined with a profiler such as Java Flight Recorder. Each stage is recorded by calling a begin method before it and the matching end method after it with the object returned by the begin method.
+ * Begin methods return null when the stage isn't being recorded, and end methods ignore null, so recording costs no more than a method call and a null check when it is switched off. The profiler in use is returned by Profiling.getProfiler()
+ * @author William Platt
+ *
+ */
+public interface Profiler {
+	
+	/**
+	 * Called before a frame is rendered
+	 * @return the event being recorded; null if frames aren't being recorded
+	 */
+	Object beginFrame();
+	
+	/**
+	 * Called after a frame has been rendered, including its outline and labels
+	 * @param event the value returned by beginFrame()
+	 * @param width the width of the frame in pixels
+	 * @param height the height of the frame in pixels
+	 * @param renderScale the number of samples along each axis per pixel
+	 * @param trianglesSubmitted the number of triangles of the objects that were rendered
+	 * @param trianglesCulled the number of triangles rejected before rasterisation
+	 * @param pixelsShaded the number of samples written to the frame buffer
+	 */
+	void endFrame(Object event, int width, int height, double renderScale, int trianglesSubmitted, int trianglesCulled, long pixelsShaded);
+	
+	/**
+	 * Called before the faces of an object are transformed and rasterised
+	 * @return the event being recorded; null if rasterisation isn't being recorded
+	 */
+	Object beginRasterise();
+	
+	/**
+	 * Called after the faces of an object have been transformed and rasterised
+	 * @param event the value returned by beginRasterise()
+	 * @param objectID the ID of the object
+	 * @param faces the number of faces of the level of detail that was rasterised
+	 */
+	void endRasterise(Object event, int objectID, int faces);
+	
+	/**
+	 * Called before a beam's path is recalculated and its geometry regenerated
+	 * @return the event being recorded; null if beam updates aren't being recorded
+	 */
+	Object beginBeamUpdate();
+	
+	/**
+	 * Called after a beam's path has been recalculated and its geometry regenerated
+	 * @param event the value returned by beginBeamUpdate()
+	 * @param beamID the ID of the beam
+	 * @param bounces the number of times the beam meets a surface of the target
+	 */
+	void endBeamUpdate(Object event, int beamID, int bounces);
+	
+	/**
+	 * Called before a beam's path is traced through the target
+	 * @return the event being recorded; null if tracing isn't being recorded
+	 */
+	Object beginRayCalculation();
+	
+	/**
+	 * Called after a beam's path has been traced through the target
+	 * @param event the value returned by beginRayCalculation()
+	 * @param beamID the ID of the beam
+	 * @param bounces the number of times the beam meets a surface of the target
+	 * @param targetFaces the number of faces of the target, each of which is tested against every ray
+	 */
+	void endRayCalculation(Object event, int beamID, int bounces, int targetFaces);
+	
+	/**
+	 * Called before the geometry of a mesh is generated
+	 * @return the event being recorded; null if mesh construction isn't being recorded
+	 */
+	Object beginMesh();
+	
+	/**
+	 * Called after the geometry of a mesh has been generated
+	 * @param event the value returned by beginMesh()
+	 * @param shape the name of the shape; null if the mesh isn't a primitive shape
+	 * @param level the level of detail, where 0 is the most detailed
+	 * @param faces the number of faces of the mesh
+	 * @param verts the number of vertices of the mesh
+	 */
+	void endMesh(Object event, String shape, int level, int faces, int verts);
+	
+}
@@ -0,0 +1,136 @@
+package RefractionSim;
+
+/**
+ * Class for finding the profiler that rendering and tracing are recorded with. Java Flight Recorder events need Java 11 or newer, but the program runs on Java 7, so the profiler that records them is kept in a separate JAR file and loaded by name if it is on the class path; otherwise nothing is recorded
+ * @author William Platt
+ *
+ */
+public class Profiling {
+	
+	private static final String FLIGHT_RECORDER_PROFILER = "RefractionSim.jfr.FlightRecorderProfiler";
+	
+	/**
+	 * A profiler that doesn't record anything
+	 */
+	public static final Profiler NO_PROFILER = new Profiler() {
+		
+		/**
+		 * Doesn't record the frame
+		 * @return null
+		 */
+		public Object beginFrame() {
+			return null;
+		}
+		
+		/**
+		 * Does nothing
+		 * @param event ignored
+		 * @param width ignored
+		 * @param height ignored
+		 * @param renderScale ignored
+		 * @param trianglesSubmitted ignored
+		 * @param trianglesCulled ignored
+		 * @param pixelsShaded ignored
+		 */
+		public void endFrame(Object event, int width, int height, double renderScale, int trianglesSubmitted, int trianglesCulled, long pixelsShaded) {
+		}
+		
+		/**
+		 * Doesn't record the rasterisation
+		 * @return null
+		 */
+		public Object beginRasterise() {
+			return null;
+		}
+		
+		/**
+		 * Does nothing
+		 * @param event ignored
+		 * @param objectID ignored
+		 * @param faces ignored
+		 */
+		public void endRasterise(Object event, int objectID, int faces) {
+		}
+		
+		/**
+		 * Doesn't record the beam update
+		 * @return null
+		 */
+		public Object beginBeamUpdate() {
+			return null;
+		}
+		
+		/**
+		 * Does nothing
+		 * @param event ignored
+		 * @param beamID ignored
+		 * @param bounces ignored
+		 */
+		public void endBeamUpdate(Object event, int beamID, int bounces) {
+		}
+		
+		/**
+		 * Doesn't record the tracing
+		 * @return null
+		 */
+		public Object beginRayCalculation() {
+			return null;
+		}
+		
+		/**
+		 * Does nothing
+		 * @param event ignored
+		 * @param beamID ignored
+		 * @param bounces ignored
+		 * @param targetFaces ignored
+		 */
+		public void endRayCalculation(Object event, int beamID, int bounces, int targetFaces) {
+		}
+		
+		/**
+		 * Doesn't record the mesh construction
+		 * @return null
+		 */
+		public Object beginMesh() {
+			return null;
+		}
+		
+		/**
+		 * Does nothing
+		 * @param event ignored
+		 * @param shape ignored
+		 * @param level ignored
+		 * @param faces ignored
+		 * @param verts ignored
+		 */
+		public void endMesh(Object event, String shape, int level, int faces, int verts) {
+		}
+		
+	};
+	private static final Profiler PROFILER = loadProfiler(); // Must come after NO_PROFILER, which loadProfiler() can return
+	
+	/**
+	 * Returns the profiler that rendering and tracing are recorded with
+	 * @return the Java Flight Recorder profiler if it is on the class path and the Java version supports it; otherwise a profiler that doesn't record anything
+	 */
+	public static Profiler getProfiler() {
+		return PROFILER;
+	}
+	
+	/**
+	 * Loads the Java Flight Recorder profiler by name
+	 * @return the profiler, or NO_PROFILER if it couldn't be loaded
+	 */
+	private static Profiler loadProfiler() {
+		try {
+			return (Profiler)(Class.forName(FLIGHT_RECORDER_PROFILER).newInstance());
+		} catch (ClassNotFoundException e) { // The JAR file isn't on the class path
+			return NO_PROFILER;
+		} catch (LinkageError e) { // The Java version is too old for the profiler or for Java Flight Recorder
+			return NO_PROFILER;
+		} catch (InstantiationException | IllegalAccessException | ClassCastException e) {
+			return NO_PROFILER;
+		}
+	}
+	
+}
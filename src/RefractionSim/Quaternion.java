@@ -0,0 +1,192 @@
+package RefractionSim;
+
+/**
+ * Class for quaternions, which are used as unit quaternions to represent orientations and rotations. Composing two rotations takes 16 multiplications rather than the 27 of multiplying rotation matrices, and a quaternion can be brought back to unit length with a single square root, whereas a matrix that has drifted away from being a rotation has to be re-orthonormalised
+ * @author William Platt
+ *
+ */
+public class Quaternion {
+	
+	private double w; // The scalar part, which is cos(angle / 2) for a rotation
+	private double x; // The vector part (x, y, z), which is sin(angle / 2) times the axis of rotation
+	private double y;
+	private double z;
+	
+	/**
+	 * Constructor for the Quaternion class which creates the identity quaternion (no rotation)
+	 */
+	public Quaternion() {
+		this.w = 1;
+	}
+	
+	/**
+	 * Returns the scalar part of the quaternion
+	 * @return the w element
+	 */
+	public double getW() {
+		return w;
+	}
+	
+	/**
+	 * Returns the x element of the vector part of the quaternion
+	 * @return the x element
+	 */
+	public double getX() {
+		return x;
+	}
+	
+	/**
+	 * Returns the y element of the vector part of the quaternion
+	 * @return the y element
+	 */
+	public double getY() {
+		return y;
+	}
+	
+	/**
+	 * Returns the z element of the vector part of the quaternion
+	 * @return the z element
+	 */
+	public double getZ() {
+		return z;
+	}
+	
+	/**
+	 * Sets all four elements of the quaternion
+	 * @param w the new scalar part
+	 * @param x the new x element of the vector part
+	 * @param y the new y element of the vector part
+	 * @param z the new z element of the vector part
+	 * @return this quaternion, so that calls can be chained
+	 */
+	public Quaternion set(double w, double x, double y, double z) {
+		this.w = w;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	/**
+	 * Copies the elements of another quaternion into this one
+	 * @param toCopy the quaternion to copy
+	 * @return this quaternion, so that calls can be chained
+	 */
+	public Quaternion set(Quaternion toCopy) {
+		return set(toCopy.w, toCopy.x, toCopy.y, toCopy.z);
+	}
+	
+	/**
+	 * Sets the quaternion to represent a rotation about an axis
+	 * @param axis the axis about which to rotate, which doesn't need to be normalised (it isn't changed)
+	 * @param angle the number of radians by which to rotate, in the same direction as Matrix.setToRotation()
+	 * @return this quaternion, so that calls can be chained
+	 * @throws IllegalArgumentException if the axis has zero length
+	 */
+	public Quaternion setToRotation(Vec3 axis, double angle) {
+		double modulus = axis.modulus();
+		if (modulus == 0) {
+			throw new IllegalArgumentException("A rotation needs an axis with non-zero length");
+		} else {
+			double scale = Math.sin(angle / 2) / modulus; // Normalises the axis at the same time as scaling it
+			return set(Math.cos(angle / 2), axis.getX() * scale, axis.getY() * scale, axis.getZ() * scale);
+		}
+	}
+	
+	/**
+	 * Sets the quaternion to represent the same rotation as a 3 by 3 rotation matrix, choosing whichever of the four possible formulae divides by the largest number so that the result is accurate for every rotation
+	 * @param rotation the rotation matrix, whose columns are the rotated x, y and z axes
+	 * @return this quaternion, so that calls can be chained, normalised in case the matrix had drifted from being a rotation
+	 * @throws IllegalArgumentException if the matrix is not 3 by 3
+	 */
+	public Quaternion set(Matrix rotation) {
+		if ((rotation.getM() != 3) || (rotation.getN() != 3)) {
+			throw new IllegalArgumentException("Only a 3 by 3 matrix can be converted to a quaternion");
+		} else {
+			// rRC is the element in row R and column C
+			double r00 = rotation.getElement(0, 0);
+			double r11 = rotation.getElement(1, 1);
+			double r22 = rotation.getElement(2, 2);
+			double r01 = rotation.getElement(1, 0);
+			double r10 = rotation.getElement(0, 1);
+			double r02 = rotation.getElement(2, 0);
+			double r20 = rotation.getElement(0, 2);
+			double r12 = rotation.getElement(2, 1);
+			double r21 = rotation.getElement(1, 2);
+			double trace = r00 + r11 + r22;
+			if (trace > 0) { // w is the largest element
+				double s = Math.sqrt(trace + 1) * 2; // 4w
+				set(s / 4, (r21 - r12) / s, (r02 - r20) / s, (r10 - r01) / s);
+			} else if ((r00 > r11) && (r00 > r22)) { // x is the largest element
+				double s = Math.sqrt(1 + r00 - r11 - r22) * 2; // 4x
+				set((r21 - r12) / s, s / 4, (r01 + r10) / s, (r02 + r20) / s);
+			} else if (r11 > r22) { // y is the largest element
+				double s = Math.sqrt(1 + r11 - r00 - r22) * 2; // 4y
+				set((r02 - r20) / s, (r01 + r10) / s, s / 4, (r12 + r21) / s);
+			} else { // z is the largest element
+				double s = Math.sqrt(1 + r22 - r00 - r11) * 2; // 4z
+				set((r10 - r01) / s, (r02 + r20) / s, (r12 + r21) / s, s / 4);
+			}
+			return normalise();
+		}
+	}
+	
+	/**
+	 * Sets this quaternion to the product ab, which represents the rotation b followed by the rotation a (in the same order as multiplying rotation matrices). Either or both of a and b may be this quaternion
+	 * @param a the quaternion on the left of the product
+	 * @param b the quaternion on the right of the product
+	 * @return this quaternion, so that calls can be chained
+	 */
+	public Quaternion multiply(Quaternion a, Quaternion b) {
+		return set(a.w * b.w - a.x * b.x - a.y * b.y - a.z * b.z,
+				a.w * b.x + a.x * b.w + a.y * b.z - a.z * b.y,
+				a.w * b.y - a.x * b.z + a.y * b.w + a.z * b.x,
+				a.w * b.z + a.x * b.y - a.y * b.x + a.z * b.w);
+	}
+	
+	/**
+	 * Scales the quaternion back to unit length, removing the drift that builds up from rounding errors when many rotations are composed
+	 * @return this quaternion, so that calls can be chained
+	 */
+	public Quaternion normalise() {
+		double modulus = Math.sqrt(w * w + x * x + y * y + z * z);
+		return set(w / modulus, x / modulus, y / modulus, z / modulus);
+	}
+	
+	/**
+	 * Rotates a vector by the rotation the (unit) quaternion represents. result may be the same vector as toRotate
+	 * @param toRotate the vector to rotate
+	 * @param result the vector to store the rotated vector in
+	 * @return result, for convenience
+	 */
+	public Vec3 transform(Vec3 toRotate, Vec3 result) {
+		double vx = toRotate.getX();
+		double vy = toRotate.getY();
+		double vz = toRotate.getZ();
+		// v' = v + 2w(u x v) + 2u x (u x v) where u is the vector part
+		double tx = 2 * (y * vz - z * vy); // t = 2(u x v)
+		double ty = 2 * (z * vx - x * vz);
+		double tz = 2 * (x * vy - y * vx);
+		return result.set(vx + w * tx + y * tz - z * ty, vy + w * ty + z * tx - x * tz, vz + w * tz + x * ty - y * tx);
+	}
+	
+	/**
+	 * Returns the rotation matrix that represents the same rotation as the (unit) quaternion. The matrix is orthonormal to within rounding error however many rotations the quaternion has been composed from
+	 * @return a new 3 by 3 Matrix whose columns are the rotated x, y and z axes
+	 */
+	public Matrix toMatrix() {
+		double xx = x * x;
+		double yy = y * y;
+		double zz = z * z;
+		double xy = x * y;
+		double xz = x * z;
+		double yz = y * z;
+		double wx = w * x;
+		double wy = w * y;
+		double wz = w * z;
+		Matrix result = new Matrix(3, 3);
+		result.setElements(new double[] {1 - 2 * (yy + zz), 2 * (xy + wz), 2 * (xz - wy),   2 * (xy - wz), 1 - 2 * (xx + zz), 2 * (yz + wx),   2 * (xz + wy), 2 * (yz - wx), 1 - 2 * (xx + yy)}); // Columns joined end-to-end
+		return result;
+	}
+	
+}
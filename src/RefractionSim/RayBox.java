@@ -13,16 +13,25 @@ public class RayBox extends Object3D {
 	private boolean localPitchInverted;
 	
 	/**
-	 * Constructor for the RayBox class that generates the ray box's geometry, sets its colour, position and orientation and creates the light beam with geometry
+	 * Constructor for the RayBox class that generates the ray box's geometry, sets its colour, position and a random orientation and creates the light beam with geometry
 	 */
 	public RayBox() {
+		this((Math.random() - 0.5) * 2 * Math.PI); // Set a random heading
+	}
+	
+	/**
+	 * Constructor for the RayBox class that places the ray box at a particular heading around the world's origin, facing the origin, so that scenes can be reproduced exactly
+	 * @param heading the angle of rotation clockwise around the world's y-axis from directly in front of the origin
+	 */
+	public RayBox(double heading) {
 		super(new Mesh(Mesh.Primitive.CUBE), new Color(200, 200, 200)); // The ray box is a cube with a light grey object colour
 		mesh.scale(0.5, 0.5, 0.5); // Shrink the ray box
 		this.lightBeam = new Beam(new Color(200, 20, 20), 0.015); // Set the ray box's light beam as a new Beam with a red colour and radius of 0.015 units (3 in the beam thickness text field)
 		Vector newOrigin = new Vector(3);
 		newOrigin.setElement(2, -5); // heading: pi, pitch: 0
 		this.setOrigin(newOrigin);
-		this.orbit((Math.random() - 0.5) * 2 * Math.PI, 0); // Set a random heading
+		setQuaternionOrientation(true); // The ray box is rotated many times as the user drags it, so its orientation is kept as a quaternion that is normalised after every rotation
+		this.orbit(heading, 0);
 		localPitchInverted = false; // Ray box is not upside down
 	}
 	
@@ -34,6 +43,7 @@ public class RayBox extends Object3D {
 	@Override
 	public void setOrigin(Vector origin) {
 		this.origin = origin;
+		invalidateWorldVerts();
 		lightBeam.setOrigin(origin);		
 	}
 	
@@ -109,18 +119,12 @@ public class RayBox extends Object3D {
 	}
 	
 	/**
-	 * Rotates both the ray box and light beam about their origins by the angular displacement represented by the rotation matrix
-	 * @param rotation a 3 by 3 matrix representing the angular displacement of the new orientation from the old one
-	 * @throws IllegalArgumentException if rotation is not a 3 by 3 matrix; the matrix should also represent a rotation, although this will not throw an exception
+	 * Keeps the light beam facing the same way as the ray box whenever the ray box is rotated
 	 */
 	@Override
-	public void rotate(Matrix rotation) {
-		if ((rotation.getM() != 3) || (rotation.getN() != 3)) {
-			throw new IllegalArgumentException("A 3 by 3 matrix is needed to rotate an object");
-		} else {
-			this.orientation = rotation.multiply(this.orientation);
-			lightBeam.setOrientation(this.orientation);
-		}
+	protected void orientationChanged() {
+		invalidateWorldVerts();
+		lightBeam.setOrientation(getOrientation());
 	}
 	
 	/**
@@ -129,14 +133,9 @@ public class RayBox extends Object3D {
 	 * @param pitch the angle of rotation about the ray box's x-axis
 	 */
 	public void rotate(double heading, double pitch) {
-		Matrix verticalRot = new Matrix(3, 3);
-		verticalRot.setToRotation(this.orientation.getVector(0), pitch);
-		Matrix horizontalRot = new Matrix(3, 3);
-		Vector verticalAxis = new Vector(3);
-		verticalAxis.setElements(new double[] {0, 1, 0});
-		horizontalRot.setToRotation(verticalAxis, heading);
-		rotate(verticalRot);
-		rotate(horizontalRot);
+		Quaternion verticalRot = new Quaternion().setToRotation(new Vec3(getOrientation().getVector(0)), pitch);
+		Quaternion horizontalRot = new Quaternion().setToRotation(new Vec3(0, 1, 0), heading);
+		rotate(horizontalRot.multiply(horizontalRot, verticalRot)); // The vertical rotation followed by the horizontal one
 	}
 	
 	/**
@@ -145,19 +144,12 @@ public class RayBox extends Object3D {
 	 * @param pitch the angle of rotation clockwise about the horizontal vector perpendicular to the vector from the origin to the ray box if the ray box had a y co-ordinate of 0
 	 */
 	public void orbitAboutOrigin(double heading, double pitch) {
-		Matrix verticalRot = new Matrix(3, 3);
-		Vector pitchAxis = new Vector(3);
-		pitchAxis.setElements(new double[] {origin.getElement(0), 0, origin.getElement(2)}); // Vector from the world's origin to the ray box's origin if the ray box was in the horizontal plane
-		verticalRot.setElements(new double[] {0, 0, 1,   0, 1, 0,   -1, 0, 0}); // Represents a rotation pi/2 radians anticlockwise about the world's y-axis
-		pitchAxis = verticalRot.multiply(pitchAxis); // Horizontal vector perpendicular to the horizontal vector from the world's origin to the ray box's origin
-		verticalRot.setToRotation(pitchAxis, pitch);
-		Matrix horizontalRot = new Matrix(3, 3);
-		Vector verticalAxis = new Vector(3);
-		verticalAxis.setElements(new double[] {0, 1, 0}); // World's y-axis
-		horizontalRot.setToRotation(verticalAxis, heading);
-		setOrigin(horizontalRot.multiply(verticalRot.multiply(this.origin)));
-		this.rotate(verticalRot);
-		this.rotate(horizontalRot);
+		Vec3 pitchAxis = new Vec3(-origin.getElement(2), 0, origin.getElement(0)); // Horizontal vector perpendicular to the horizontal vector from the world's origin to the ray box's origin (that vector rotated pi/2 radians anticlockwise about the world's y-axis)
+		Quaternion verticalRot = new Quaternion().setToRotation(pitchAxis, pitch);
+		Quaternion horizontalRot = new Quaternion().setToRotation(new Vec3(0, 1, 0), heading); // Rotation about the world's y-axis
+		Quaternion orbitRot = horizontalRot.multiply(horizontalRot, verticalRot); // The vertical rotation followed by the horizontal one
+		setOrigin(orbitRot.transform(new Vec3(this.origin), new Vec3()).toVector());
+		rotate(orbitRot);
 	}
 	
 }
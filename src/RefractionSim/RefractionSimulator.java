@@ -18,8 +18,8 @@ public class RefractionSimulator extends JFrame {
 	 * @param args the parameter passed by the system which isn't needed in this application
 	 */
 	public static void main(String[] args) {
+		SimulatorMetrics.register(); // Publish the metrics so that the simulator can be monitored over JMX
 		JFrame window = new RefractionSimulator();
-		window.setResizable(false);
 		window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         window.setVisible(true);
 	}
@@ -30,7 +30,6 @@ public class RefractionSimulator extends JFrame {
 	public RefractionSimulator() {
 		super("Refraction Simulator");
 		setSize(GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds().getSize()); // Set the window to fill all of the screen except for the task bar
-		setResizable(false);
 		setVisible(true);
 		content = new JPanel();
 		content.setLayout(new BorderLayout());
@@ -0,0 +1,284 @@
+package RefractionSim;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.swing.Timer;
+
+/**
+ * Class for objects that collect requests to recalculate beams and re-render a viewport and carry them out at most once per frame. Requests made between frames are merged, so only the latest state of the scene is ever traced and rendered
+ * @author William Platt
+ *
+ */
+public class RenderScheduler implements ActionListener {
+	
+	private Viewport viewport;
+	private Timer timer; // Fires on the event dispatch thread, so scene changes and frames never overlap
+	private int maxFrameRate;
+	private Set<Beam> beamsToUpdate = new LinkedHashSet<Beam>(); // Beams whose paths need recalculating before the next frame; a set so that each beam is only traced once however many times it is changed
+	private boolean allBeamsToUpdate = false; // Whether every beam needs recalculating (such as when a material changes)
+	private long lastFrameStart = 0; // Value of System.nanoTime() when the last frame started
+	private long firstRequestTime = -1; // Value of System.nanoTime() when the oldest request not yet being rendered was made; -1 if there are no such requests
+	private long lastTraceTime = 0; // Nanoseconds taken to recalculate beams the last time they were recalculated
+	// While the user is dragging or scrolling, frames are rendered at a lower resolution so that they keep up with the input; once the input settles a full resolution frame is rendered
+	private static final int SETTLE_DELAY = 250; // Milliseconds without input before the input is considered to have settled
+	private Timer settleTimer;
+	private boolean inputActive = false;
+	private double interactiveRenderScale = 0.5; // Samples along each axis per pixel while input is active
+	private double stillRenderScale = 2; // Samples along each axis per pixel once input has settled; supersampled by default so that thin beams don't have jagged, flickering edges in still frames and saved images
+	// Input latency (time from the first request for a frame to that frame being shown) statistics in nanoseconds
+	private long lastLatency = 0;
+	private long maxLatency = 0;
+	private double averageLatency = 0; // Exponential moving average so that it reflects recent frames
+	private long numOfFrames = 0;
+	
+	/**
+	 * Constructor for the RenderScheduler class
+	 * @param viewport the viewport to re-render and whose beams are recalculated
+	 * @param maxFrameRate the maximum number of frames to render per second
+	 */
+	public RenderScheduler(Viewport viewport, int maxFrameRate) {
+		this.viewport = viewport;
+		this.timer = new Timer(0, this);
+		this.timer.setRepeats(false);
+		this.settleTimer = new Timer(SETTLE_DELAY, new ActionListener() {
+			
+			/**
+			 * Called when there has been no input for SETTLE_DELAY milliseconds to replace the last low resolution frame with a full resolution one
+			 * @param event contains details of the timer event
+			 */
+			public void actionPerformed(ActionEvent event) {
+				inputActive = false;
+				requestRender();
+			}
+			
+		});
+		this.settleTimer.setRepeats(false);
+		setMaxFrameRate(maxFrameRate);
+	}
+	
+	/**
+	 * Returns the maximum number of frames that will be rendered per second in response to requests
+	 * @return the frame rate cap
+	 */
+	public int getMaxFrameRate() {
+		return maxFrameRate;
+	}
+	
+	/**
+	 * Sets the maximum number of frames that will be rendered per second in response to requests
+	 * @param maxFrameRate the new frame rate cap
+	 * @throws IllegalArgumentException if maxFrameRate is not positive
+	 */
+	public void setMaxFrameRate(int maxFrameRate) {
+		if (maxFrameRate <= 0) {
+			throw new IllegalArgumentException("The frame rate cap must be positive");
+		} else {
+			this.maxFrameRate = maxFrameRate;
+		}
+	}
+	
+	/**
+	 * Records that the user is in the middle of continuous input such as dragging or scrolling, so frames are rendered at the interactive render scale until the input settles. This should be called before the change caused by the input is requested
+	 */
+	public void noteInput() {
+		inputActive = true;
+		settleTimer.restart(); // Input settles SETTLE_DELAY milliseconds after the latest input
+	}
+	
+	/**
+	 * Returns true if frames are currently being rendered at the interactive render scale because input hasn't settled yet
+	 * @return whether the user's input is still active
+	 */
+	public boolean isInputActive() {
+		return inputActive;
+	}
+	
+	/**
+	 * Returns the render scale to use for the next frame, which depends on whether input is active
+	 * @return the number of samples along each axis per pixel for the next frame
+	 */
+	public double getRenderScale() {
+		if (inputActive) {
+			return interactiveRenderScale;
+		} else {
+			return stillRenderScale;
+		}
+	}
+	
+	/**
+	 * Returns the render scale used while input is active
+	 * @return the number of samples along each axis per pixel while input is active
+	 */
+	public double getInteractiveRenderScale() {
+		return interactiveRenderScale;
+	}
+	
+	/**
+	 * Sets the render scale used while input is active; values below 1 keep frames quick to render at the cost of detail
+	 * @param renderScale the number of samples along each axis per pixel while input is active
+	 * @throws IllegalArgumentException if renderScale is not positive or is above 1 but not a whole number
+	 */
+	public void setInteractiveRenderScale(double renderScale) {
+		if ((renderScale <= 0) || ((renderScale > 1) && (renderScale != Math.floor(renderScale)))) {
+			throw new IllegalArgumentException("The render scale must be positive and a whole number if it is above 1");
+		} else {
+			interactiveRenderScale = renderScale;
+		}
+	}
+	
+	/**
+	 * Returns the render scale used once input has settled, which is also used when saving images
+	 * @return the number of samples along each axis per pixel once input has settled
+	 */
+	public double getStillRenderScale() {
+		return stillRenderScale;
+	}
+	
+	/**
+	 * Sets the render scale used once input has settled; whole numbers above 1 supersample the frame to smooth jagged edges
+	 * @param renderScale the number of samples along each axis per pixel once input has settled
+	 * @throws IllegalArgumentException if renderScale is not positive or is above 1 but not a whole number
+	 */
+	public void setStillRenderScale(double renderScale) {
+		if ((renderScale <= 0) || ((renderScale > 1) && (renderScale != Math.floor(renderScale)))) {
+			throw new IllegalArgumentException("The render scale must be positive and a whole number if it is above 1");
+		} else {
+			stillRenderScale = renderScale;
+			requestRender();
+		}
+	}
+	
+	/**
+	 * Requests that the viewport is re-rendered in the next frame
+	 */
+	public void requestRender() {
+		if (firstRequestTime == -1) {
+			firstRequestTime = System.nanoTime();
+		}
+		if (!timer.isRunning()) {
+			// Start the frame straight away unless that would exceed the frame rate cap
+			long frameInterval = 1000000000L / maxFrameRate;
+			long wait = lastFrameStart + frameInterval - System.nanoTime();
+			if (wait < 0) {
+				wait = 0;
+			}
+			timer.setInitialDelay((int)(wait / 1000000));
+			timer.start();
+		}
+	}
+	
+	/**
+	 * Requests that the path of a beam is recalculated and the viewport re-rendered in the next frame
+	 * @param beam the beam whose path has been affected by a change to the scene
+	 */
+	public void requestBeamUpdate(Beam beam) {
+		beamsToUpdate.add(beam);
+		requestRender();
+	}
+	
+	/**
+	 * Requests that the paths of all beams are recalculated and the viewport re-rendered in the next frame
+	 */
+	public void requestAllBeamsUpdate() {
+		allBeamsToUpdate = true;
+		requestRender();
+	}
+	
+	/**
+	 * Called by the timer when it is time for the next frame to ask the viewport to start rendering it
+	 * @param event contains details of the timer event
+	 */
+	public void actionPerformed(ActionEvent event) {
+		viewport.renderFrame();
+	}
+	
+	/**
+	 * Called by the viewport at the start of a frame to recalculate the beams that have been changed since the last frame
+	 * @return value of System.nanoTime() when the first request for this frame was made; -1 if the frame wasn't requested through this scheduler
+	 */
+	public long frameStarted() {
+		lastFrameStart = System.nanoTime();
+		long frameRequestTime = firstRequestTime;
+		firstRequestTime = -1;
+		updateBeams();
+		return frameRequestTime;
+	}
+	
+	/**
+	 * Recalculates the beams that have been changed since they were last recalculated without starting a frame, such as before saving an image of the scene
+	 */
+	public void updateBeams() {
+		long start = System.nanoTime();
+		if (allBeamsToUpdate) {
+			viewport.recalculateBeams();
+		} else {
+			for (Beam beam : beamsToUpdate) {
+				beam.update();
+			}
+		}
+		allBeamsToUpdate = false;
+		beamsToUpdate.clear();
+		lastTraceTime = System.nanoTime() - start;
+	}
+	
+	/**
+	 * Returns how long it took to recalculate the beams that had changed the last time beams were recalculated, which is normally at the start of the latest frame
+	 * @return the time taken to recalculate beams in nanoseconds
+	 */
+	public long getLastTraceTime() {
+		return lastTraceTime;
+	}
+	
+	/**
+	 * Called by the viewport when a frame has been shown to record the input latency of the frame
+	 * @param frameRequestTime the value returned by frameStarted() for the frame (frames with a value of -1 are ignored)
+	 */
+	public void frameFinished(long frameRequestTime) {
+		if (frameRequestTime != -1) {
+			lastLatency = System.nanoTime() - frameRequestTime;
+			if (lastLatency > maxLatency) {
+				maxLatency = lastLatency;
+			}
+			if (numOfFrames == 0) {
+				averageLatency = lastLatency;
+			} else {
+				averageLatency = 0.9 * averageLatency + 0.1 * lastLatency;
+			}
+			numOfFrames++;
+		}
+	}
+	
+	/**
+	 * Returns the time between the first request for the most recent frame and that frame being shown
+	 * @return the input latency of the most recent frame in milliseconds
+	 */
+	public double getLastLatency() {
+		return lastLatency / 1000000.0;
+	}
+	
+	/**
+	 * Returns the average input latency of recent frames, weighted towards the most recent frames
+	 * @return the average input latency in milliseconds
+	 */
+	public double getAverageLatency() {
+		return averageLatency / 1000000.0;
+	}
+	
+	/**
+	 * Returns the greatest input latency of any frame so far
+	 * @return the maximum input latency in milliseconds
+	 */
+	public double getMaxLatency() {
+		return maxLatency / 1000000.0;
+	}
+	
+	/**
+	 * Returns the number of frames that were rendered in response to requests
+	 * @return the number of frames for which latency has been measured
+	 */
+	public long getNumOfFrames() {
+		return numOfFrames;
+	}
+	
+}
@@ -0,0 +1,174 @@
+package RefractionSim;
+import java.awt.Color;
+import java.awt.Graphics;
+import javax.swing.SwingUtilities;
+
+/**
+ * Class for the thread that renders frames for a viewport so that the event dispatch thread stays free to respond to the user. Frames are double-buffered: one frame is rendered into the back buffer while the front buffer is being shown, and the two are swapped when the new frame is finished
+ * @author William Platt
+ *
+ */
+public class RenderThread extends Thread {
+	
+	private Viewport viewport;
+	private Renderer renderer;
+	private SceneSnapshot pendingScene = null; // The latest snapshot submitted that hasn't started rendering; older snapshots are replaced because only the latest state of the scene needs showing
+	private long pendingRequestTime = -1; // Value of System.nanoTime() when the oldest request rendered by pendingScene was made; -1 if unknown
+	private double pendingRenderScale = 1; // Samples along each axis per pixel for pendingScene
+	private int frameWidth; // Size of the frames to render from now on
+	private int frameHeight;
+	private final Object frameLock = new Object(); // Held while the front buffer is being used or swapped with the back buffer
+	private RenderedFrame frontFrame = null; // The last finished frame (null until the first frame is finished)
+	private RenderedFrame backFrame; // The frame being rendered into
+	
+	/**
+	 * Constructor for the RenderThread class which prepares the renderer and buffers; start() must be called before any frames are rendered
+	 * @param viewport the viewport that the frames are shown in, which is told when each frame is finished
+	 * @param frameX width of the frames in pixels
+	 * @param frameY height of the frames in pixels
+	 * @param bgColor the colour of pixels where there is no object
+	 */
+	public RenderThread(Viewport viewport, int frameX, int frameY, Color bgColor) {
+		super("Renderer");
+		setDaemon(true); // Don't keep the program running once the window is closed
+		this.viewport = viewport;
+		this.renderer = new Renderer(frameX, frameY, bgColor);
+		this.backFrame = new RenderedFrame(frameX, frameY);
+		this.frameWidth = frameX;
+		this.frameHeight = frameY;
+	}
+	
+	/**
+	 * Changes the size of the frames rendered from now on; the frame being rendered (if any) keeps its old size
+	 * @param frameX the new width of the frames in pixels
+	 * @param frameY the new height of the frames in pixels
+	 * @throws IllegalArgumentException if frameX or frameY is not positive
+	 */
+	public synchronized void setFrameSize(int frameX, int frameY) {
+		if ((frameX <= 0) || (frameY <= 0)) {
+			throw new IllegalArgumentException("A frame must be at least 1 pixel wide and 1 pixel high");
+		} else {
+			frameWidth = frameX;
+			frameHeight = frameY;
+		}
+	}
+	
+	/**
+	 * Asks for a snapshot of the scene to be rendered as soon as the thread is free. If another snapshot is still waiting, it is replaced by this one
+	 * @param scene the snapshot of the scene to render
+	 * @param requestTime value of System.nanoTime() when the first change shown by this snapshot was requested (-1 if unknown) so that latency can be measured
+	 * @param renderScale the number of samples along each axis per pixel (see Renderer.render())
+	 */
+	public synchronized void submit(SceneSnapshot scene, long requestTime, double renderScale) {
+		if ((pendingScene == null) || (pendingRequestTime == -1) || ((requestTime != -1) && (requestTime < pendingRequestTime))) {
+			pendingRequestTime = requestTime; // Keep the time of the oldest request that hasn't been shown yet
+		}
+		pendingScene = scene;
+		pendingRenderScale = renderScale;
+		notifyAll(); // Wake the thread if it is waiting for work
+	}
+	
+	/**
+	 * Waits for snapshots to be submitted and renders them one at a time, swapping the buffers and telling the viewport after each frame
+	 */
+	@Override
+	public void run() {
+		while (true) {
+			SceneSnapshot scene;
+			final long requestTime;
+			double renderScale;
+			int width;
+			int height;
+			synchronized (this) {
+				while (pendingScene == null) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return; // Stop rendering
+					}
+				}
+				scene = pendingScene;
+				requestTime = pendingRequestTime;
+				renderScale = pendingRenderScale;
+				width = frameWidth;
+				height = frameHeight;
+				pendingScene = null;
+				pendingRequestTime = -1;
+			}
+			if ((width != renderer.getOutputWidth()) || (height != renderer.getOutputHeight())) {
+				renderer.setOutputSize(width, height); // The buffers are only reallocated if they are too small
+			}
+			backFrame.resize(width, height); // Reuses the frame's image if it is big enough
+			try {
+				renderer.render(scene, backFrame, renderScale);
+			} catch (RuntimeException e) { // Don't let one bad frame stop all future frames
+				e.printStackTrace();
+				continue;
+			}
+			synchronized (frameLock) { // Wait for the viewport to finish drawing the front buffer before swapping
+				RenderedFrame temp = frontFrame;
+				frontFrame = backFrame;
+				backFrame = (temp != null) ? temp : new RenderedFrame(frontFrame.getImage().getWidth(), frontFrame.getImage().getHeight());
+			}
+			SwingUtilities.invokeLater(new Runnable() {
+	
+				/**
+				 * Tells the viewport on the event dispatch thread that a new frame is ready to be shown
+				 */
+				public void run() {
+					viewport.frameRendered(requestTime);
+				}
+	
+			});
+		}
+	}
+	
+	/**
+	 * Draws the last finished frame with its top left at (0, 0)
+	 * @param g the graphics context to draw the frame to
+	 * @return false if no frame has been finished yet, so nothing was drawn
+	 */
+	public boolean drawFrame(Graphics g) {
+		synchronized (frameLock) {
+			if (frontFrame == null) {
+				return false;
+			} else {
+				g.drawImage(frontFrame.getImage(), 0, 0, null);
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Copies the performance statistics of the last finished frame
+	 * @param stats the statistics to copy into
+	 * @return false if no frame has been finished yet, so nothing was copied
+	 */
+	public boolean getFrameStats(FrameStats stats) {
+		synchronized (frameLock) {
+			if (frontFrame == null) {
+				return false;
+			} else {
+				stats.copyFrom(frontFrame.getStats());
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the ID of the object visible at a pixel of the last finished frame
+	 * @param x the x co-ordinate of the pixel
+	 * @param y the y co-ordinate of the pixel
+	 * @return the ID of the object in the foreground at (x, y); -1 if there is no object there or no frame has been finished yet
+	 */
+	public int getObjectAt(int x, int y) {
+		synchronized (frameLock) {
+			if (frontFrame == null) {
+				return -1;
+			} else {
+				return frontFrame.getObjectAt(x, y);
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,95 @@
+package RefractionSim;
+import java.awt.image.BufferedImage;
+
+/**
+ * Class for finished frames: the image to be drawn in the viewport along with the ID of the object visible at each pixel, which is needed to work out which object the user clicks on
+ * @author William Platt
+ *
+ */
+public class RenderedFrame {
+	
+	private BufferedImage fullImage; // The image that the frame's pixels are stored in, which may be larger than the frame so that it can be reused when the frame is resized
+	private BufferedImage image; // The top left of fullImage that is the size of the frame, sharing fullImage's pixels
+	private int[][] objectBuffer; // Stores the ID of the object in the foreground for each pixel; may be larger than the frame, like fullImage
+	private int width;
+	private int height;
+	private FrameStats stats = new FrameStats(); // How long the frame took to render and how much work it took
+	
+	/**
+	 * Constructor for the RenderedFrame class
+	 * @param width the width of the frame in pixels
+	 * @param height the height of the frame in pixels
+	 */
+	public RenderedFrame(int width, int height) {
+		this.fullImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		this.image = fullImage;
+		this.objectBuffer = new int[width][height];
+		this.width = width;
+		this.height = height;
+	}
+	
+	/**
+	 * Changes the size of the frame. The frame's image and object buffer are only reallocated if they are too small for the new size; otherwise the top left of the existing image is used, so resizing back and forth doesn't allocate
+	 * @param width the new width of the frame in pixels
+	 * @param height the new height of the frame in pixels
+	 * @throws IllegalArgumentException if width or height is not positive
+	 */
+	public void resize(int width, int height) {
+		if ((width <= 0) || (height <= 0)) {
+			throw new IllegalArgumentException("A frame must be at least 1 pixel wide and 1 pixel high");
+		} else if ((width != this.width) || (height != this.height)) {
+			if ((width > fullImage.getWidth()) || (height > fullImage.getHeight())) { // Grow to fit the new size without shrinking along either axis
+				int newWidth = Math.max(width, fullImage.getWidth());
+				int newHeight = Math.max(height, fullImage.getHeight());
+				fullImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
+				objectBuffer = new int[newWidth][newHeight];
+			}
+			if ((width == fullImage.getWidth()) && (height == fullImage.getHeight())) {
+				image = fullImage;
+			} else {
+				image = fullImage.getSubimage(0, 0, width, height);
+			}
+			this.width = width;
+			this.height = height;
+		}
+	}
+	
+	/**
+	 * Returns the rendered image including outlines and text
+	 * @return the image of the frame
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+	
+	/**
+	 * Returns the object buffer, which is written to by the renderer
+	 * @return the ID of the object in the foreground for each pixel, indexed by x co-ordinate then y co-ordinate (-1 where there is no object); it may be larger than the frame, in which case only the part the size of the frame is used
+	 */
+	public int[][] getObjectBuffer() {
+		return objectBuffer;
+	}
+	
+	/**
+	 * Returns the performance statistics of the frame, which are written by the renderer
+	 * @return the statistics of the frame
+	 */
+	public FrameStats getStats() {
+		return stats;
+	}
+	
+	/**
+	 * Returns the ID of the object visible at a pixel
+	 * @param x the x co-ordinate of the pixel
+	 * @param y the y co-ordinate of the pixel
+	 * @return the ID of the object in the foreground at (x, y); -1 if there is no object there or (x, y) is outside the frame
+	 */
+	public int getObjectAt(int x, int y) {
+		if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+			return -1;
+		} else {
+			return objectBuffer[x][y];
+		}
+	}
+	
+}
@@ -0,0 +1,1274 @@
+package RefractionSim;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Class for rendering snapshots of the scene into frames. A renderer keeps its buffers between frames, so each renderer must only be used by one thread at a time
+ * @author William Platt
+ *
+ */
+public class Renderer {
+	private int outputWidth; // Width of the finished frames in pixels
+	private int outputHeight;
+	private int frameWidth; // Width of the buffers that the 3-D scene is rasterised to for the current frame, which depends on the render scale
+	private int frameHeight;
+	private int samplesPerPixel; // Number of samples along each axis for each pixel of the finished frame when supersampling; 1 otherwise
+	private int[][] frameBuffer; // Packed RGB value of each sample (the alpha byte is always 255). The buffers are only ever grown, so they may be larger than frameWidth by frameHeight
+	private double[][] depthBuffer;
+	private int[][] objectBuffer; // Stores the ID of the object in the foreground for each sample
+	private int[][] outputObjectBuffer; // Stores the ID of the object in the foreground for each pixel of the finished frame; belongs to the frame being rendered
+	private int[] pixelValues; // Packed RGB values of the finished frame for copying into the frame's image
+	// Bounding rectangle (inclusive, in samples) of everything written to the buffers by each object in the current frame, indexed by ID; min > max if nothing was written. An object's visible samples are always inside its rectangle, so passes over one object only need to scan its rectangle instead of the whole frame
+	private int[] boundsMinX = new int[0];
+	private int[] boundsMinY = new int[0];
+	private int[] boundsMaxX = new int[0];
+	private int[] boundsMaxY = new int[0];
+	private int bgColor; // Packed RGB value of pixels where there is no object
+	private double zoomX;
+	private double zoomY;
+	private static final double NEAR_CLIP = 0.01; // The closest a point on a face can be to the camera before it is no longer rendered
+	private static final double FAR_CLIP = 10000; // The furthest a point on a face can be from the camera before it is no longer rendered
+	private Mat4 clipMatrix = new Mat4(); // Matrix for transforming camera-space co-ordinates into clip space co-ordinates
+	private Clipper clipper = new Clipper(); // Clips faces that cross the boundary of the view frustum
+	// Threads shared by all renderers for resolving supersampled frames in bands of rows
+	private static final int RESOLVE_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int MIN_ROWS_PER_BAND = 32; // Fewer rows than this aren't worth handing to another thread
+	private static final ExecutorService RESOLVE_POOL = Executors.newFixedThreadPool(RESOLVE_THREADS, new ThreadFactory() {
+		
+		/**
+		 * Creates a thread for the pool that won't keep the program running once everything else has finished
+		 * @param task the task that the thread runs
+		 * @return the new thread
+		 */
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, "Resolver");
+			thread.setDaemon(true);
+			return thread;
+		}
+		
+	});
+	private static final double MAX_SEGMENT_LENGTH = 24; // The longest (in pixels) that the edges of a curved surface may appear before a more detailed level of detail is used
+	private SceneSnapshot scene; // The scene being rendered
+	private static final Profiler PROFILER = Profiling.getProfiler(); // Records frames and the rasterisation of each object when profiling
+	private static final SimulatorMetrics METRICS = SimulatorMetrics.getMetrics();
+	private LabelLayer labelLayer = new LabelLayer(); // Writes the angles of beams, keeping the formatted text and glyphs between frames
+	private double[] viewProjection = new double[16]; // Elements of the matrix (columns joined end-to-end) transforming world space to clip space for the current frame
+	// Matrices for calcViewProjection(), which are reused every frame
+	private Mat3 uprightToCamera = new Mat3();
+	private Mat4 worldToCamera = new Mat4();
+	private Mat4 projection = new Mat4();
+	private Mat4 viewProjectionMatrix = new Mat4(); // The same transformation as viewProjection, which is combined with each object's transformation to world space
+	private Mat4 modelViewProjection = new Mat4(); // The transformation from object space to clip space for the object being rendered
+	// Orders of the objects and faces to render, as values from sortKey(); reused between frames and grown when needed
+	private long[] opaqueOrder = new long[0];
+	private long[] translucentOrder = new long[0];
+	private long[] faceOrder = new long[0];
+	// Work done for the current frame, stored in the frame's statistics once it is finished
+	private long transformTime; // Nanoseconds spent transforming vertices
+	private int trianglesSubmitted;
+	private int trianglesCulled;
+	private long pixelsShaded;
+	// Coarse depth buffer holding the furthest depth in the depth buffer within each TILE_SIZE by TILE_SIZE square of samples, stored row by row. A face or object whose nearest point is behind the furthest depth of every tile it covers can't be visible, so it is skipped before any of its samples are tested
+	private static final int TILE_SIZE = 8;
+	private double[] tileMaxDepth = new double[0];
+	private int tilesAcross;
+	private int tilesDown;
+	// Buffers of vertex co-ordinates for the object being rendered; they are reused between objects and frames and grown when needed
+	private double[] clipSpaceVerts = new double[0]; // 4 elements (x, y, z, w) per vertex
+	private int[] outcodes = new int[0]; // The planes of the view frustum that each vertex is outside of
+	private double[] normalisedSpaceVerts = new double[0]; // 3 elements per vertex, only set for vertices inside the view frustum
+	private double[] screenSpaceVerts = new double[0]; // 3 elements per vertex (the third is the normalised depth), only set for vertices inside the view frustum
+	private double[] clippedNormalisedVerts = new double[Clipper.MAX_VERTS * 3]; // Vertices of a clipped face in normalised clip space
+	private double[] clippedScreenVerts = new double[Clipper.MAX_VERTS * 3]; // Vertices of a clipped face in screen space
+	
+	/**
+	 * Constructor for the Renderer class which allocates the buffers and sets up the projection for frames of a particular size
+	 * @param frameX width of the frames in pixels
+	 * @param frameY height of the frames in pixels
+	 * @param bgColor the colour of pixels where there is no object
+	 */
+	public Renderer(int frameX, int frameY, Color bgColor) {
+		this.frameBuffer = new int[frameX][frameY];
+		this.depthBuffer = new double[frameX][frameY];
+		this.objectBuffer = new int[frameX][frameY];
+		this.pixelValues = new int[frameX * frameY];
+		this.bgColor = bgColor.getRGB();
+		setOutputSize(frameX, frameY);
+	}
+	
+	/**
+	 * Changes the size of the frames that the renderer renders, such as when the viewport is resized, and recalculates the projection for the new aspect ratio. The buffers are only reallocated if they are too small for the new size; they are never shrunk, so resizing back and forth doesn't allocate
+	 * @param frameX the new width of the frames in pixels
+	 * @param frameY the new height of the frames in pixels
+	 * @throws IllegalArgumentException if frameX or frameY is not positive
+	 */
+	public void setOutputSize(int frameX, int frameY) {
+		if ((frameX <= 0) || (frameY <= 0)) {
+			throw new IllegalArgumentException("A frame must be at least 1 pixel wide and 1 pixel high");
+		} else {
+			this.outputWidth = frameX;
+			this.outputHeight = frameY;
+			if (pixelValues.length < frameX * frameY) {
+				pixelValues = new int[frameX * frameY];
+			}
+			double verticalFOV = 20 * Math.PI / 180; // Up/down field of view in radians
+			double horizontalFOV = 2 * Math.atan(Math.tan(verticalFOV / 2) * frameX / frameY); // Left/right field of view in radians
+			// Set how quickly objects shrink as they get further away
+			this.zoomX = 1 / Math.tan(horizontalFOV);
+			this.zoomY = 1 / Math.tan(verticalFOV);
+			calcClipMatrix();
+		}
+	}
+	
+	/**
+	 * Returns the width of the frames that the renderer renders
+	 * @return the width of the frames in pixels
+	 */
+	public int getOutputWidth() {
+		return outputWidth;
+	}
+	
+	/**
+	 * Returns the height of the frames that the renderer renders
+	 * @return the height of the frames in pixels
+	 */
+	public int getOutputHeight() {
+		return outputHeight;
+	}
+	
+	/**
+	 * Renders a snapshot of the scene into a frame at full resolution
+	 * @param scene the snapshot of the scene to render
+	 * @param frame the frame to render into, which must be the same size as the renderer
+	 * @throws IllegalArgumentException if the frame is not the same size as the renderer
+	 */
+	public void render(SceneSnapshot scene, RenderedFrame frame) {
+		render(scene, frame, 1);
+	}
+	
+	/**
+	 * Renders a snapshot of the scene into a frame: the 3-D objects are rendered at a resolution relative to the frame's and then scaled to fit the frame's image, then the selected ray box is outlined and ray box labels and angles are written on top at the frame's own resolution
+	 * @param scene the snapshot of the scene to render
+	 * @param frame the frame to render into, which must be the same size as the renderer
+	 * @param renderScale the number of samples along each axis per pixel of the frame; values below 1 render faster at a lower resolution (each sample then covers several pixels) and whole numbers above 1 supersample to smooth jagged edges
+	 * @throws IllegalArgumentException if the frame is not the same size as the renderer or renderScale is not positive or is above 1 but not a whole number
+	 */
+	public void render(SceneSnapshot scene, RenderedFrame frame, double renderScale) {
+		BufferedImage image = frame.getImage();
+		if ((image.getWidth() != outputWidth) || (image.getHeight() != outputHeight)) {
+			throw new IllegalArgumentException("A frame must be the same size as the renderer");
+		} else if ((renderScale <= 0) || ((renderScale > 1) && (renderScale != Math.floor(renderScale)))) {
+			throw new IllegalArgumentException("The render scale must be positive and a whole number if it is above 1");
+		} else {
+			Object frameEvent = PROFILER.beginFrame();
+			long start = System.nanoTime();
+			this.scene = scene;
+			this.outputObjectBuffer = frame.getObjectBuffer();
+			transformTime = 0;
+			trianglesSubmitted = 0;
+			trianglesCulled = 0;
+			pixelsShaded = 0;
+			setRenderScale(renderScale);
+			render(); // Clear the buffers and re-render the 3-D objects to them
+			resolve(); // Scale the rendered samples to the size of the frame
+			long rasterised = System.nanoTime();
+			outlineSelectedObj(); // Add to the frame the outline around the selected ray box so the user can see which is selected
+			long outlined = System.nanoTime();
+			image.setRGB(0, 0, outputWidth, outputHeight, pixelValues, 0, outputWidth); // Copying a whole array of pixels at once is faster than setting each pixel
+			long copied = System.nanoTime();
+			
+			// Write angles and ray box labels
+			Graphics2D g2 = image.createGraphics();
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON); // Use anti-aliasing for text with smoother edges
+			FontRenderContext frc = g2.getFontRenderContext();
+			writeAngles(g2); // Write the angles over the image
+			writeRayBoxLabels(g2, frc); // Write the ray box labels over the image (this includes the angles which were drawn first)
+			g2.dispose();
+			long finished = System.nanoTime();
+			// Record the statistics of the frame; tracing and blitting happen on the event dispatch thread, so the viewport fills them in
+			FrameStats stats = frame.getStats();
+			stats.clear();
+			stats.setStageTime(FrameStats.Stage.TRANSFORM, transformTime);
+			stats.setStageTime(FrameStats.Stage.RASTERISE, (rasterised - start - transformTime) + (copied - outlined)); // Copying the pixels into the image is counted as part of rasterisation
+			stats.setStageTime(FrameStats.Stage.OUTLINE, outlined - rasterised);
+			stats.setStageTime(FrameStats.Stage.LABELS, finished - copied);
+			stats.setCounts(trianglesSubmitted, trianglesCulled, pixelsShaded);
+			PROFILER.endFrame(frameEvent, outputWidth, outputHeight, renderScale, trianglesSubmitted, trianglesCulled, pixelsShaded);
+			METRICS.frameRendered(finished - start, getBufferBytes(frame));
+			this.scene = null; // Don't keep the snapshot alive once the frame is finished
+		}
+	}
+	
+	/**
+	 * Calculates roughly how much memory is taken by the renderer's buffers and a frame's image and object buffer, which are kept between frames
+	 * @param frame the frame whose buffers are included
+	 * @return the size of the buffers in bytes, not counting array headers
+	 */
+	private long getBufferBytes(RenderedFrame frame) {
+		long bytes = (long)(frameBuffer.length) * frameBuffer[0].length * 4;
+		bytes += (long)(depthBuffer.length) * depthBuffer[0].length * 8;
+		bytes += (long)(objectBuffer.length) * objectBuffer[0].length * 4;
+		bytes += pixelValues.length * 4L + tileMaxDepth.length * 8L;
+		bytes += (clipSpaceVerts.length + normalisedSpaceVerts.length + screenSpaceVerts.length) * 8L + outcodes.length * 4L;
+		int[][] frameObjectBuffer = frame.getObjectBuffer();
+		bytes += (long)(frameObjectBuffer.length) * frameObjectBuffer[0].length * 4;
+		bytes += frame.getImage().getRaster().getDataBuffer().getSize() * 4L; // The data buffer of the frame's image covers the whole of the image it was cut from
+		return bytes;
+	}
+	
+	/**
+	 * Sets the size of the buffers used for the current frame, growing them if they are too small
+	 * @param renderScale the number of samples along each axis per pixel of the finished frame
+	 */
+	private void setRenderScale(double renderScale) {
+		if (renderScale >= 1) {
+			samplesPerPixel = (int)(renderScale);
+			frameWidth = outputWidth * samplesPerPixel;
+			frameHeight = outputHeight * samplesPerPixel;
+		} else {
+			samplesPerPixel = 1;
+			frameWidth = Math.max(1, (int)(Math.round(outputWidth * renderScale)));
+			frameHeight = Math.max(1, (int)(Math.round(outputHeight * renderScale)));
+		}
+		if ((frameBuffer.length < frameWidth) || (frameBuffer[0].length < frameHeight)) { // Grow the buffers; they are never shrunk so that switching back and forth between render scales doesn't allocate
+			int width = Math.max(frameWidth, frameBuffer.length);
+			int height = Math.max(frameHeight, frameBuffer[0].length);
+			frameBuffer = new int[width][height];
+			depthBuffer = new double[width][height];
+			objectBuffer = new int[width][height];
+		}
+	}
+	
+	/**
+	 * Fills the finished frame's pixels and object buffer from the rendered samples. When supersampling, each pixel is the average of its block of samples, and bands of rows are averaged in parallel because this takes several times longer than rendering at one sample per pixel; when rendering at a lower resolution or one sample per pixel, each pixel takes the sample that covers its centre
+	 */
+	private void resolve() {
+		int numOfBands = Math.min(RESOLVE_THREADS, outputHeight / MIN_ROWS_PER_BAND);
+		if ((samplesPerPixel == 1) || (numOfBands <= 1)) {
+			resolveRows(0, outputHeight);
+		} else {
+			List<Future<?>> bands = new ArrayList<Future<?>>(numOfBands - 1);
+			int rowsPerBand = (outputHeight + numOfBands - 1) / numOfBands;
+			for (int band = 1; band < numOfBands; band++) { // The first band is resolved on this thread
+				final int startRow = band * rowsPerBand;
+				final int endRow = Math.min(startRow + rowsPerBand, outputHeight);
+				bands.add(RESOLVE_POOL.submit(new Runnable() {
+					
+					/**
+					 * Resolves one band of rows on a thread from the pool
+					 */
+					public void run() {
+						resolveRows(startRow, endRow);
+					}
+					
+				}));
+			}
+			resolveRows(0, Math.min(rowsPerBand, outputHeight));
+			for (Future<?> band : bands) { // Wait for the other bands to finish
+				try {
+					band.get();
+				} catch (ExecutionException e) {
+					throw new RuntimeException("A band of rows couldn't be resolved", e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException("Interrupted while resolving the frame", e);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Fills the finished frame's pixels and object buffer from the rendered samples for a band of rows (see resolve()). Different bands can be resolved on different threads at the same time because they write to different pixels
+	 * @param startRow the y co-ordinate of the first row of pixels to fill
+	 * @param endRow the y co-ordinate of the row after the last row to fill
+	 */
+	private void resolveRows(int startRow, int endRow) {
+		if (samplesPerPixel == 1) {
+			for (int i = 0; i < outputWidth; i++) {
+				int x = (int)((i + 0.5) * frameWidth / outputWidth); // The sample covering the centre of the pixel; equal to i at full resolution
+				for (int j = startRow; j < endRow; j++) {
+					int y = (int)((j + 0.5) * frameHeight / outputHeight);
+					pixelValues[i + outputWidth * j] = frameBuffer[x][y];
+					outputObjectBuffer[i][j] = objectBuffer[x][y];
+				}
+			}
+		} else {
+			int numOfSamples = samplesPerPixel * samplesPerPixel;
+			for (int i = 0; i < outputWidth; i++) {
+				for (int j = startRow; j < endRow; j++) {
+					int red = 0;
+					int green = 0;
+					int blue = 0;
+					for (int x = i * samplesPerPixel; x < (i + 1) * samplesPerPixel; x++) {
+						for (int y = j * samplesPerPixel; y < (j + 1) * samplesPerPixel; y++) {
+							int sample = frameBuffer[x][y];
+							red += (sample >> 16) & 255;
+							green += (sample >> 8) & 255;
+							blue += sample & 255;
+						}
+					}
+					// Average the samples with rounding to the nearest whole number
+					red = (red + numOfSamples / 2) / numOfSamples;
+					green = (green + numOfSamples / 2) / numOfSamples;
+					blue = (blue + numOfSamples / 2) / numOfSamples;
+					pixelValues[i + outputWidth * j] = (255 << 24) | (red << 16) | (green << 8) | blue;
+					int centre = samplesPerPixel / 2;
+					outputObjectBuffer[i][j] = objectBuffer[i * samplesPerPixel + centre][j * samplesPerPixel + centre]; // The object at the centre of the pixel is the one the user would click on
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Clears the buffers and renders the 3-D scene to the buffers from the camera's point of view in two passes. Objects and faces hidden behind opaque objects that have already been drawn are rejected using a coarse depth buffer before they are rasterised. Opaque objects are rendered first from the nearest to the furthest, so that faces behind them fail the depth test before they are shaded and blended; semi-transparent objects are then rendered from the furthest to the nearest with their faces sorted in the same way, so that each face is blended over everything behind it and the colour doesn't depend on the order of the faces in the mesh
+	 */
+	private void render() {
+		clearBuffers();
+		clearBounds(scene.getNumOfObjects());
+		clearTiles();
+		calcViewProjection();
+		int numOfObjects = scene.getNumOfObjects();
+		if (opaqueOrder.length < numOfObjects) {
+			opaqueOrder = new long[numOfObjects];
+			translucentOrder = new long[numOfObjects];
+		}
+		int numOfOpaque = 0;
+		int numOfTranslucent = 0;
+		for (int i = 1; i < numOfObjects; i++) { // objectList[0] is the camera and isn't rendered
+			ObjectSnapshot object = scene.getObject(i);
+			if (object == null) { // Deleted objects leave null pointers in objectList where they once were, so skip the rendering of these
+				continue; // Skip to the end of this iteration (meaning move on to the next object in the scene)
+			}
+			if (inView(object)) { // Check the object is potentially in view of the camera before spending time attempting to render it
+				double[] boxVerts = object.getWorldBoxVerts();
+				double depth = 0; // Sum of the clip space depths of the bounding box's vertices, which increases with the distance of the box's centre from the camera
+				for (int j = 0; j < boxVerts.length; j += 3) {
+					depth += clipDepth(boxVerts, j);
+				}
+				if (object.getColor().getAlpha() == 255) {
+					opaqueOrder[numOfOpaque] = sortKey(depth, i);
+					numOfOpaque++;
+				} else {
+					translucentOrder[numOfTranslucent] = sortKey(depth, i);
+					numOfTranslucent++;
+				}
+			}
+		}
+		Arrays.sort(opaqueOrder, 0, numOfOpaque);
+		for (int i = 0; i < numOfOpaque; i++) { // Nearest first
+			int objectID = (int)(opaqueOrder[i]);
+			if (!isOccluded(scene.getObject(objectID))) { // Objects hidden behind nearer opaque objects are skipped entirely
+				renderObject(objectID, false);
+				updateTiles(objectID); // Later objects can be hidden behind this one
+			}
+		}
+		Arrays.sort(translucentOrder, 0, numOfTranslucent);
+		for (int i = numOfTranslucent - 1; i >= 0; i--) { // Furthest first
+			int objectID = (int)(translucentOrder[i]);
+			if (!isOccluded(scene.getObject(objectID))) { // The coarse depth buffer isn't updated for semi-transparent objects because objects behind them are still visible
+				renderObject(objectID, true);
+			}
+		}
+	}
+	
+	/**
+	 * Renders one object to the buffers
+	 * @param objectID the ID of the object
+	 * @param sortFaces whether to render the faces from the furthest to the nearest rather than in the order they are stored in the mesh, which is needed for semi-transparent objects
+	 */
+	private void renderObject(int objectID, boolean sortFaces) {
+		Object rasteriseEvent = PROFILER.beginRasterise();
+		ObjectSnapshot object = scene.getObject(objectID);
+		int level = selectLevel(object);
+		int[][] faces = object.getFaces(level);
+		Vec3[] verts = object.getVerts(level);
+		int numOfVerts = verts.length;
+		if (outcodes.length < numOfVerts) { // Grow the vertex buffers (they are reused between objects and frames)
+			clipSpaceVerts = new double[numOfVerts * 4];
+			outcodes = new int[numOfVerts];
+			normalisedSpaceVerts = new double[numOfVerts * 3];
+			screenSpaceVerts = new double[numOfVerts * 3];
+		}
+		long transformStart = System.nanoTime();
+		modelViewProjection.multiply(viewProjectionMatrix, object.getModel()); // Combine the object's transformation to world space with the view-projection transformation so that each vertex only needs to be multiplied by one matrix
+		transformVerts(verts, modelViewProjection);
+		transformTime += System.nanoTime() - transformStart;
+		trianglesSubmitted += faces.length;
+		if (sortFaces) {
+			if (faceOrder.length < faces.length) {
+				faceOrder = new long[faces.length];
+			}
+			for (int j = 0; j < faces.length; j++) {
+				// The sum of the clip space depths of the vertices increases with the distance of the face's centre from the camera
+				double depth = clipSpaceVerts[faces[j][0] * 4 + 2] + clipSpaceVerts[faces[j][1] * 4 + 2] + clipSpaceVerts[faces[j][2] * 4 + 2];
+				faceOrder[j] = sortKey(depth, j);
+			}
+			Arrays.sort(faceOrder, 0, faces.length);
+			for (int j = faces.length - 1; j >= 0; j--) { // Furthest first
+				renderMeshFace(faces[(int)(faceOrder[j])], objectID);
+			}
+		} else {
+			for (int j = 0; j < faces.length; j++) { // Iterate through each face of the object
+				renderMeshFace(faces[j], objectID);
+			}
+		}
+		PROFILER.endRasterise(rasteriseEvent, objectID, faces.length);
+	}
+	
+	/**
+	 * Renders one face of the object whose vertices have just been transformed by transformVerts(), clipping it against the view frustum if it crosses the frustum's boundary
+	 * @param face the indices of the face's three vertices
+	 * @param objectID the ID of the object to which the face belongs
+	 */
+	private void renderMeshFace(int[] face, int objectID) {
+		int vert0 = face[0];
+		int vert1 = face[1];
+		int vert2 = face[2];
+		int code0 = outcodes[vert0];
+		int code1 = outcodes[vert1];
+		int code2 = outcodes[vert2];
+		if ((code0 & code1 & code2) != 0) { // All three vertices are outside of the same plane, so none of the face is visible
+			trianglesCulled++;
+			return;
+		}
+		boolean rasterised = false;
+		if ((code0 | code1 | code2) == 0) { // The face is entirely inside the view frustum, so it doesn't need clipping
+			rasterised = renderFace(screenSpaceVerts, normalisedSpaceVerts, vert0 * 3, vert1 * 3, vert2 * 3, objectID);
+		} else {
+			int numOfClippedVerts = clipper.clip(clipSpaceVerts, vert0 * 4, vert1 * 4, vert2 * 4, code0 | code1 | code2);
+			for (int k = 0; k < numOfClippedVerts; k++) {
+				toScreenSpace(clipper.getVertex(k), 0, clippedNormalisedVerts, clippedScreenVerts, k * 3);
+			}
+			for (int k = 1; k < numOfClippedVerts - 1; k++) { // The clipped polygon is convex, so it can be split into a fan of triangles sharing its first vertex
+				if (renderFace(clippedScreenVerts, clippedNormalisedVerts, 0, k * 3, (k + 1) * 3, objectID)) {
+					rasterised = true;
+				}
+			}
+		}
+		if (!rasterised) {
+			trianglesCulled++;
+		}
+	}
+	
+	/**
+	 * Returns the clip space depth (before the perspective divide) of a point in world space, which increases with the distance of the point in front of the camera for both perspective and orthographic projection
+	 * @param worldCoords world space co-ordinates stored as consecutive x, y, z triples
+	 * @param i the index of the x co-ordinate of the point
+	 * @return the z co-ordinate of the point in clip space
+	 */
+	private double clipDepth(double[] worldCoords, int i) {
+		double[] m = viewProjection;
+		return m[2] * worldCoords[i] + m[6] * worldCoords[i + 1] + m[10] * worldCoords[i + 2] + m[14];
+	}
+	
+	/**
+	 * Resets the coarse depth buffer to the far clip plane for the current frame size, growing it if there are more tiles than before
+	 */
+	private void clearTiles() {
+		tilesAcross = (frameWidth + TILE_SIZE - 1) / TILE_SIZE;
+		tilesDown = (frameHeight + TILE_SIZE - 1) / TILE_SIZE;
+		if (tileMaxDepth.length < tilesAcross * tilesDown) {
+			tileMaxDepth = new double[tilesAcross * tilesDown];
+		}
+		Arrays.fill(tileMaxDepth, 0, tilesAcross * tilesDown, 1);
+	}
+	
+	/**
+	 * Recalculates the furthest depth of the tiles of the coarse depth buffer that an object has just been drawn to. Only the tiles overlapping the object's bounding rectangle can have changed
+	 * @param objectID the ID of the object that has just been rendered
+	 */
+	private void updateTiles(int objectID) {
+		if (boundsMinX[objectID] > boundsMaxX[objectID]) { // Nothing was drawn
+			return;
+		}
+		for (int tileY = boundsMinY[objectID] / TILE_SIZE; tileY <= boundsMaxY[objectID] / TILE_SIZE; tileY++) {
+			for (int tileX = boundsMinX[objectID] / TILE_SIZE; tileX <= boundsMaxX[objectID] / TILE_SIZE; tileX++) {
+				int endX = Math.min((tileX + 1) * TILE_SIZE, frameWidth);
+				int endY = Math.min((tileY + 1) * TILE_SIZE, frameHeight);
+				double maxDepth = 0;
+				for (int x = tileX * TILE_SIZE; x < endX; x++) {
+					for (int y = tileY * TILE_SIZE; y < endY; y++) {
+						if (depthBuffer[x][y] > maxDepth) {
+							maxDepth = depthBuffer[x][y];
+						}
+					}
+				}
+				tileMaxDepth[tileX + tilesAcross * tileY] = maxDepth;
+			}
+		}
+	}
+	
+	/**
+	 * Tests whether a rectangle of the screen at a particular depth is hidden behind what has been drawn so far, using the coarse depth buffer
+	 * @param minX the smallest screen space x co-ordinate of the rectangle
+	 * @param minY the smallest screen space y co-ordinate of the rectangle
+	 * @param maxX the largest screen space x co-ordinate of the rectangle
+	 * @param maxY the largest screen space y co-ordinate of the rectangle
+	 * @param minDepth the normalised depth of the nearest point of whatever the rectangle contains
+	 * @return true if every tile overlapping the rectangle has everything in it nearer than minDepth; false if something in the rectangle could be visible or the rectangle is off the screen
+	 */
+	private boolean isOccluded(double minX, double minY, double maxX, double maxY, double minDepth) {
+		// Tiles containing the centres of the samples that the rectangle could cover
+		int startTileX = (int)(Math.max(Math.floor(minX), 0)) / TILE_SIZE;
+		int startTileY = (int)(Math.max(Math.floor(minY), 0)) / TILE_SIZE;
+		int endTileX = (int)(Math.min(Math.floor(maxX), frameWidth - 1)) / TILE_SIZE;
+		int endTileY = (int)(Math.min(Math.floor(maxY), frameHeight - 1)) / TILE_SIZE;
+		if ((startTileX > endTileX) || (startTileY > endTileY)) { // Off the screen, which is dealt with by the view frustum rather than the coarse depth buffer
+			return false;
+		}
+		for (int tileY = startTileY; tileY <= endTileY; tileY++) {
+			for (int tileX = startTileX; tileX <= endTileX; tileX++) {
+				if (minDepth < tileMaxDepth[tileX + tilesAcross * tileY]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Tests whether an object is hidden behind what has been drawn so far by testing its bounding box against the coarse depth buffer
+	 * @param obj the object to test
+	 * @return true if the object's bounding box is entirely behind what has been drawn so far; false if any of the object could be visible
+	 */
+	private boolean isOccluded(ObjectSnapshot obj) {
+		double[] boxVerts = obj.getWorldBoxVerts(); // Only recalculated if the object has moved or changed shape
+		double[] m = viewProjection;
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double minDepth = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < boxVerts.length; i += 3) {
+			double x = boxVerts[i];
+			double y = boxVerts[i + 1];
+			double z = boxVerts[i + 2];
+			double clipZ = m[2] * x + m[6] * y + m[10] * z + m[14];
+			if (clipZ < 0) { // The box crosses the near clip plane, so its projection doesn't bound the object
+				return false;
+			}
+			double w = m[3] * x + m[7] * y + m[11] * z + m[15];
+			// Map the point to screen space as in toScreenSpace()
+			double screenX = ((m[0] * x + m[4] * y + m[8] * z + m[12]) / w + 1) * frameWidth / 2;
+			double screenY = frameHeight * (0.5 - (m[1] * x + m[5] * y + m[9] * z + m[13]) / w * 0.5);
+			minX = Math.min(minX, screenX);
+			minY = Math.min(minY, screenY);
+			maxX = Math.max(maxX, screenX);
+			maxY = Math.max(maxY, screenY);
+			minDepth = Math.min(minDepth, clipZ / w);
+		}
+		return isOccluded(minX, minY, maxX, maxY, minDepth);
+	}
+	
+	/**
+	 * Combines a depth and an index into a single value so that an array of them can be sorted by depth without creating any objects
+	 * @param depth the value to sort by
+	 * @param index a non-negative index which can be retrieved by casting the returned value to an int
+	 * @return a value whose order relative to other values from this method is the same as the order of their depths
+	 */
+	private static long sortKey(double depth, int index) {
+		int bits = Float.floatToIntBits((float)(depth)); // Single precision is plenty to order faces and objects
+		bits ^= (bits >> 31) & 0x7FFFFFFF; // Flip all but the sign bit of negative values so that the bits sort in the same order as the values
+		return ((long)(bits) << 32) | index;
+	}
+	
+	/**
+	 * Maps the object space vertices of an object straight to clip space using the object's combined model-view-projection transformation for this frame, storing their outcodes and (for vertices inside the view frustum) their normalised clip space and screen space co-ordinates
+	 * @param verts the vertices in object space
+	 * @param mvp the transformation from the object's object space to clip space
+	 */
+	private void transformVerts(Vec3[] verts, Mat4 mvp) {
+		for (int v = 0; v < verts.length; v++) {
+			int c = v * 4;
+			mvp.transformPoint(verts[v].getX(), verts[v].getY(), verts[v].getZ(), clipSpaceVerts, c); // One matrix-vector product per vertex, with the point extended to (x, y, z, 1)
+			outcodes[v] = Clipper.outcode(clipSpaceVerts, c);
+			if (outcodes[v] == 0) { // Only vertices inside the view frustum can be safely mapped to screen space; the others are handled by clipping
+				toScreenSpace(clipSpaceVerts, c, normalisedSpaceVerts, screenSpaceVerts, v * 3);
+			}
+		}
+	}
+	
+	/**
+	 * Rasterises a triangle that is entirely inside the view frustum unless it is facing away from the camera and its object is opaque
+	 * @param screenVerts screen space co-ordinates (with normalised depth) stored as consecutive x, y, z triples
+	 * @param normalisedVerts normalised clip space co-ordinates stored in the same order as screenVerts
+	 * @param i0 the index in both arrays of the x co-ordinate of the first vertex of the triangle
+	 * @param i1 the index of the x co-ordinate of the second vertex
+	 * @param i2 the index of the x co-ordinate of the third vertex
+	 * @param objectID the ID of the object to which the triangle belongs (the index of the object in objectList)
+	 * @return true if the triangle was rasterised; false if it was culled
+	 */
+	private boolean renderFace(double[] screenVerts, double[] normalisedVerts, int i0, int i1, int i2, int objectID) {
+		double minX = Math.min(screenVerts[i0], Math.min(screenVerts[i1], screenVerts[i2]));
+		double minY = Math.min(screenVerts[i0 + 1], Math.min(screenVerts[i1 + 1], screenVerts[i2 + 1]));
+		double maxX = Math.max(screenVerts[i0], Math.max(screenVerts[i1], screenVerts[i2]));
+		double maxY = Math.max(screenVerts[i0 + 1], Math.max(screenVerts[i1 + 1], screenVerts[i2 + 1]));
+		double minDepth = Math.min(screenVerts[i0 + 2], Math.min(screenVerts[i1 + 2], screenVerts[i2 + 2]));
+		if (isOccluded(minX, minY, maxX, maxY, minDepth)) { // The whole triangle is behind what has been drawn so far, so don't shade or rasterise it
+			return false;
+		}
+		// Calculate the screen space normal to the face as the cross product of two of its edges
+		double ax = screenVerts[i1] - screenVerts[i0];
+		double ay = screenVerts[i1 + 1] - screenVerts[i0 + 1];
+		double az = screenVerts[i1 + 2] - screenVerts[i0 + 2];
+		double bx = screenVerts[i2] - screenVerts[i0];
+		double by = screenVerts[i2 + 1] - screenVerts[i0 + 1];
+		double bz = screenVerts[i2 + 2] - screenVerts[i0 + 2];
+		Vector normal = new Vector(3);
+		normal.setElements(new double[] {ay * bz - az * by, az * bx - ax * bz, ax * by - ay * bx});
+		normal = normal.normalise(); // Normalise to length 1
+		if ((normal.getElement(2) > 0) || (scene.getObject(objectID).getColor().getAlpha() < 255)) { // Don't render the face if it is facing away from the camera and the object is opaque; remember that the normal is flipped in the mapping to screen space
+			Vector p0 = toVector(screenVerts, i0);
+			double d = p0.dotProduct(normal); // The equation of a plane is p.n = d where p is a point in the plane and n is the normal
+			int faceColor = calcFaceColor(normalisedVerts, i0, i1, i2, scene.getObject(objectID)); // Shading calculations work better in normalised clip space than screen space
+			rasterise(p0, toVector(screenVerts, i1), toVector(screenVerts, i2), normal, d, faceColor, objectID); // Draw the triangle into the buffers using screen space co-ordinates and a screen space normal vector
+			return true;
+		} else {
+			return false;
+		}
+	}
+	
+	/**
+	 * Returns three consecutive elements of an array of co-ordinates as a 3-row vector
+	 * @param coords the array of co-ordinates
+	 * @param i the index of the first element
+	 * @return the point starting at index i as a Vector object
+	 */
+	private static Vector toVector(double[] coords, int i) {
+		Vector point = new Vector(3);
+		point.setElement(0, coords[i]);
+		point.setElement(1, coords[i + 1]);
+		point.setElement(2, coords[i + 2]);
+		return point;
+	}
+	
+	/**
+	 * Overwrites pixels of the finished frame in order to create a bright orange outline 1 pixel thick around the selected object so that the user can identify which object is selected
+	 */
+	private void outlineSelectedObj() {
+		int selectedObjID = scene.getSelectedObjID();
+		if ((selectedObjID > 1) && (selectedObjID < scene.getNumOfObjects())) { // Check there is an object selected
+			if (scene.getObject(selectedObjID) != null) { // Check that the selected object wasn't deleted and has a mesh (unlike the camera)
+				
+				int[] bounds = getPixelBounds(selectedObjID);
+				if (bounds == null) { // The selected object isn't in view
+					return;
+				}
+				// Only the selected object's bounding rectangle (and the row and column after it, where the outline can be drawn) needs to be scanned
+				int endX = Math.min(bounds[2] + 1, outputWidth - 1);
+				int endY = Math.min(bounds[3] + 1, outputHeight - 1);
+				int outlineColor = new Color(255, 170, 64).getRGB(); // Bright orange
+				for (int i = bounds[0]; i <= bounds[2]; i++) { // For each column of pixels, place dots where there are boundaries of the selected object
+					boolean lastBelongsToObject = false;
+					for (int j = bounds[1]; j <= endY; j++) {
+						if (!lastBelongsToObject) {
+							if (outputObjectBuffer[i][j] == selectedObjID) {
+								if (j > 0) { // If the object starts above the screen or at the very top then the outline cannot be drawn here
+									pixelValues[i + outputWidth * (j - 1)] = outlineColor;
+								}
+								lastBelongsToObject = true;
+							}
+						} else {
+							if (outputObjectBuffer[i][j] != selectedObjID) {
+								pixelValues[i + outputWidth * j] = outlineColor;
+								lastBelongsToObject = false;
+							}
+						}
+					}
+				}
+				for (int j = bounds[1]; j <= bounds[3]; j++) { // For each row of pixels, place dots where there are boundaries of the selected object
+					boolean lastBelongsToObject = false;
+					for (int i = bounds[0]; i <= endX; i++) {
+						if (!lastBelongsToObject) {
+							if (outputObjectBuffer[i][j] == selectedObjID) {
+								if (i > 0) { // If the object starts left of the screen or at the very left then the outline cannot be drawn here
+									pixelValues[i - 1 + outputWidth * j] = outlineColor;
+								}
+								lastBelongsToObject = true;
+							}
+						} else {
+							if (outputObjectBuffer[i][j] != selectedObjID) {
+								pixelValues[i + outputWidth * j] = outlineColor;
+								lastBelongsToObject = false;
+							}
+						}
+					}
+				}
+				
+			}
+		}
+	}
+	
+	/**
+	 * Draws/Writes all angles of incidence, refraction and reflection in the frame's image (on top of anything already drawn)
+	 * @param g the graphics context for the frame's image which allows text to be drawn in the image
+	 */
+	private void writeAngles(Graphics g) {
+		labelLayer.beginFrame(outputWidth, outputHeight, scene.areAnglesInDegrees());
+		double halfWidth = labelLayer.getHalfWidth(); // Half the typical width of an angle (in pixels)
+		Mat3 uprightToCamera = new Mat3(scene.getCameraOrientation()).transpose(); // Matrix for transforming points from the camera's upright space to the camera's object space (camera space)
+		Vec3 cameraOrigin = new Vec3(scene.getCameraOrigin());
+		Vec3 cameraCoord = new Vec3();
+		for (int i = 2; i < scene.getNumOfObjects(); i++) { // Iterate through each object in the scene except for the camera and target (IDs 0 and 1)
+			if (scene.getObject(i) != null) {
+				double[] angles = scene.getObject(i).getAngles(); // Empty unless the object is a beam with its angles visible
+				int numOfAngles = angles.length;
+				Vec3[] anglePositions = scene.getObject(i).getAnglePositions(); // Points in world space of the angles
+				for (int j = 0; j < numOfAngles; j++) {
+					uprightToCamera.multiply(cameraCoord.set(anglePositions[j]).subtract(cameraOrigin), cameraCoord); // Map the world space points to camera space (via the camera's upright space)
+					Vector normalisedCoord = project(cameraCoord.toVector());
+					// Map the points in normalised clip space to screen space and offset slightly because text position is defined by its top left, not its centre
+					int x = (int)(Math.round(((normalisedCoord.getElement(0) + 1) * outputWidth / 2) - halfWidth));
+					int y = (int)(Math.round(outputHeight * (0.5 -normalisedCoord.getElement(1) * 0.5) - 5));
+					labelLayer.writeAngle(g, i, j, angles[j], x, y); // Write the angle in the appropriate place within the viewport, moving it if it would overlap another angle
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Draws/Writes all ray box labels in the frame's image (on top of anything that has already been drawn)
+	 * @param g the graphics context for the frame's image which allows text to be drawn in the image
+	 * @param frc the FontRenderContext of the 2-D graphics context (which should have anti-aliasing) which allows the ascent (maximum height above the baseline) of text to be determined without drawing
+	 */
+	private void writeRayBoxLabels(Graphics g, FontRenderContext frc) {
+		Font rayBoxLabelFont = new Font("SansSerif", Font.BOLD, 20);
+		int minX = 5; // Left margin preventing the label being written too close to the left edge of the viewport
+		int minY = (int)(Math.round(rayBoxLabelFont.getLineMetrics("W", frc).getAscent() + 5)); // Top margin preventing the label being written too close to the top of the viewport
+		g.setFont(rayBoxLabelFont);
+		g.setColor(Color.BLUE);
+		for (int i = 1; i < scene.getNumOfObjects(); i++) {
+			int[] bounds = getPixelBounds(i);
+			if ((scene.getObject(i) != null) && (scene.getObject(i).getLabel() != null) && (bounds != null)) { // Only ray boxes have labels, and only those in view need them
+				boolean found = false;
+				// Working from left to right down the ray box's bounding rectangle, find the first pixel belonging to this particular ray box
+				for (int y = bounds[1]; (y <= bounds[3]) && (found == false); y++) {
+					for (int x = bounds[0]; (x <= bounds[2]) && (found == false); x++) {
+						if (outputObjectBuffer[x][y] == i) {
+							if (x < minX) {
+								x = minX;
+							}
+							if (y < minY) {
+								y = minY;
+							}
+							g.drawString(scene.getObject(i).getLabel(), x, y);
+							found = true;
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if the bounding box of an object is at least partially visible to the camera (but the object itself may still be completely out of sight)
+	 * @param obj the 3-D object to be checked for visibility
+	 * @return whether or not the bounding box of obj is in view of the camera
+	 */
+	private boolean inView(ObjectSnapshot obj) { // Even if this returns true, the object may not be in view, as this is a quick algorithm
+		boolean inView = false;
+		// For each array variable, index 0 represents the x-axis, index 1 represents the y-axis and index 2 represents the z-axis
+		boolean[] below = {false, false, false};
+		boolean[] above = {false, false, false};
+		boolean[] span = {false, false, false}; // Each span element is set to true if there is a normalised clip space point in the visible range or one point above the range and one point below the range
+		int[][] bounds = {{-1, 1}, {-1, 1}, {0, 1}}; // For each inner array, index 0 is the lower bound for that axis and index 1 is the upper bound
+		double[] boxVerts = obj.getWorldBoxVerts(); // Only recalculated if the object has moved or changed shape
+		double[] m = viewProjection;
+		double[] normalisedCoord = new double[3];
+		int i = 0;
+		while ((i < boxVerts.length) && (!inView)) {
+			double x = boxVerts[i];
+			double y = boxVerts[i + 1];
+			double z = boxVerts[i + 2];
+			double w = m[3] * x + m[7] * y + m[11] * z + m[15]; // Map the point in world space to clip space
+			if (w == 0) {
+				w = 0.0001; // Avoid divide by zero
+			}
+			normalisedCoord[0] = (m[0] * x + m[4] * y + m[8] * z + m[12]) / w;
+			normalisedCoord[1] = (m[1] * x + m[5] * y + m[9] * z + m[13]) / w;
+			normalisedCoord[2] = (m[2] * x + m[6] * y + m[10] * z + m[14]) / w;
+			for (int j = 0; (j < 3) && (inView == false); j++) { // For each of the x, y and z axes
+				if (span[j] == false) {
+					if (normalisedCoord[j] >= bounds[j][0]) {
+						if (normalisedCoord[j] <= bounds[j][1]) {
+							span[j] = true; // A point within the bounds is treated like one on each side because both contribute to making the box visible on that axis
+						} else {
+							above[j] = true;
+						}
+					} else {
+						below[j] = true;
+					}
+					if ((below[j]) && (above[j])) {
+						span[j] = true;
+					}
+					if ((span[0]) && (span[1]) && (span[2])) {
+						inView = true;
+					}
+				}
+			}
+			i += 3;
+		}
+		return inView;
+	}
+	
+	/**
+	 * Chooses the least detailed level of detail of an object whose curved surfaces won't look faceted, based on how large the object's bounding box appears on screen
+	 * @param obj the object to be rendered
+	 * @return the level of detail to render where 0 is the most detailed
+	 */
+	private int selectLevel(ObjectSnapshot obj) {
+		if (obj.getNumOfLevels() == 1) {
+			return 0;
+		}
+		// Find the size on screen of the bounding box
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		double[] boxVerts = obj.getWorldBoxVerts();
+		double[] m = viewProjection;
+		for (int i = 0; i < boxVerts.length; i += 3) {
+			double x = boxVerts[i];
+			double y = boxVerts[i + 1];
+			double z = boxVerts[i + 2];
+			double w = m[3] * x + m[7] * y + m[11] * z + m[15];
+			if (w <= 0) { // Part of the box is level with or behind the camera, so the object could fill the screen
+				return 0;
+			}
+			double screenX = ((m[0] * x + m[4] * y + m[8] * z + m[12]) / w) * frameWidth / 2;
+			double screenY = ((m[1] * x + m[5] * y + m[9] * z + m[13]) / w) * frameHeight / 2;
+			minX = Math.min(minX, screenX);
+			maxX = Math.max(maxX, screenX);
+			minY = Math.min(minY, screenY);
+			maxY = Math.max(maxY, screenY);
+		}
+		double size = Math.max(maxX - minX, maxY - minY); // Approximately the diameter of the curved surfaces in pixels
+		for (int level = obj.getNumOfLevels() - 1; level > 0; level--) {
+			if (Math.PI * size / obj.getSegmentsPerTurn(level) <= MAX_SEGMENT_LENGTH) { // The approximate length of each edge around the curved surfaces
+				return level;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Maps a point from camera space to normalised clip space and returns the point as a Vector object
+	 * @param cameraCoord the point in camera space which is to be mapped to normalised clip space
+	 * @return cameraCoord mapped to normalised clip space
+	 * @throws IllegalArgumentException if the cameraCoord parameter is not a 3-row vector
+	 */
+	private Vector project(Vector cameraCoord) {
+		double[] clipCoord = toClipSpace(cameraCoord);
+		if (clipCoord[3] == 0) {
+			clipCoord[3] = 0.0001; // Avoid divide by zero
+		}
+		return perspectiveDivide(clipCoord);
+	}
+	
+	/**
+	 * Maps a point from camera space to homogeneous clip space, in which the view frustum is the region where -w <= x <= w, -w <= y <= w and 0 <= z <= w
+	 * @param cameraCoord the point in camera space which is to be mapped to clip space
+	 * @return cameraCoord mapped to clip space as an array of 4 elements (x, y, z, w)
+	 * @throws IllegalArgumentException if the cameraCoord parameter is not a 3-row vector
+	 */
+	private double[] toClipSpace(Vector cameraCoord) {
+		if (cameraCoord.getN() != 3) {
+			throw new IllegalArgumentException("A point in camera space must be a 3-D vector");
+		} else {
+			double[] clip4D = new double[4];
+			if (scene.isOrthographic()) {
+				double zoom = scene.getCameraOrigin().modulus() / 3000; // Orthographic visualisation means that object size is independent of distance, but this means that moving further away does not give a wider view, so the view cube (rather than the view frustum in perspective projection) is stretched with distance to make the view wider when the camera is further away
+				// The clip space is the same as normalised clip space because w is always 1
+				clip4D[0] = cameraCoord.getElement(0) / (outputWidth * zoom);
+				clip4D[1] = cameraCoord.getElement(1) / (outputHeight * zoom);
+				clip4D[2] = cameraCoord.getElement(2) / FAR_CLIP;
+				clip4D[3] = 1;
+			} else {
+				// Perspective projection in 3-D is not a linear transformation in three dimensions, so cannot be performed using 3 by 3 matrices; the point is treated as 4-D with element 3 set to 1 so that it becomes the old value of element 2 after the clip matrix has been applied
+				clipMatrix.transformPoint(cameraCoord.getElement(0), cameraCoord.getElement(1), cameraCoord.getElement(2), clip4D, 0);
+			}
+			return clip4D;
+		}
+	}
+	
+	/**
+	 * Performs the perspective divide to map a point from clip space to normalised clip space
+	 * @param clipCoord the point in clip space as an array of 4 elements (x, y, z, w) where w is not 0
+	 * @return the point in normalised clip space as a 3-row vector
+	 */
+	private Vector perspectiveDivide(double[] clipCoord) {
+		Vector normalised3D = new Vector(3);
+		normalised3D.setElement(0, clipCoord[0] / clipCoord[3]);
+		normalised3D.setElement(1, clipCoord[1] / clipCoord[3]);
+		normalised3D.setElement(2, clipCoord[2] / clipCoord[3]);
+		return normalised3D;
+	}
+	
+	/**
+	 * Maps a point in clip space to normalised clip space (by the perspective divide) and then to extended screen space (screen space with the normalised depth kept as the third element)
+	 * @param clipCoords an array containing the point in clip space as 4 consecutive elements (x, y, z, w) where w is not 0
+	 * @param c the index of the point's x co-ordinate in clipCoords
+	 * @param normalisedCoords the array to store the point in normalised clip space in as 3 consecutive elements
+	 * @param screenCoords the array to store the point in extended screen space in as 3 consecutive elements
+	 * @param s the index in normalisedCoords and screenCoords to store the x co-ordinate at
+	 */
+	private void toScreenSpace(double[] clipCoords, int c, double[] normalisedCoords, double[] screenCoords, int s) {
+		double w = clipCoords[c + 3];
+		double x = clipCoords[c] / w;
+		double y = clipCoords[c + 1] / w;
+		double z = clipCoords[c + 2] / w;
+		normalisedCoords[s] = x;
+		normalisedCoords[s + 1] = y;
+		normalisedCoords[s + 2] = z;
+		screenCoords[s] = (x + 1) * frameWidth / 2; // Map normalised x co-ordinate to screen space
+		screenCoords[s + 1] = frameHeight * (0.5 - y * 0.5); // Map normalised y co-ordinate to screen space - notice that the normalised y co-ordinate is negated, causing the face's normal to flip
+		screenCoords[s + 2] = z; // Store the normalised depth along with each screen space co-ordinate
+	}
+	
+	/**
+	 * Calculates the combined transformation from world space to clip space (via the camera's upright space and camera space) for the camera's current position and orientation and the current projection
+	 */
+	private void calcViewProjection() {
+		uprightToCamera.set(scene.getCameraOrientation()).transpose(); // Matrix for transforming points from the camera's upright space to the camera's object space (camera space)
+		Vec3 translation = uprightToCamera.multiply(new Vec3(scene.getCameraOrigin()), new Vec3()).scale(-1); // Moving the camera to the world's origin is applied before rotating into camera space
+		worldToCamera.setAffine(uprightToCamera, translation);
+		if (scene.isOrthographic()) {
+			double zoom = scene.getCameraOrigin().modulus() / 3000; // As in toClipSpace()
+			projection.setZero();
+			projection.setElement(0, 0, 1 / (outputWidth * zoom));
+			projection.setElement(1, 1, 1 / (outputHeight * zoom));
+			projection.setElement(2, 2, 1 / FAR_CLIP);
+			projection.setElement(3, 3, 1);
+		} else {
+			projection.set(clipMatrix);
+		}
+		viewProjectionMatrix.multiply(projection, worldToCamera).getElements(viewProjection); // Columns joined end-to-end
+	}
+	
+	/**
+	 * Returns the colour to render a particular face in based on the object's overall colour and how much the face is pointing towards the camera in normalised clip space
+	 * @param verts normalised clip space co-ordinates stored as consecutive x, y, z triples
+	 * @param i0 the index in verts of the x co-ordinate of the first vertex of the face. It is important that the order of the vertices is correct
+	 * @param i1 the index of the x co-ordinate of the second vertex
+	 * @param i2 the index of the x co-ordinate of the third vertex
+	 * @param object the object to which the face belongs
+	 * @return the colour to render the face as a packed ARGB value including the object's alpha
+	 */
+	private int calcFaceColor(double[] verts, int i0, int i1, int i2, ObjectSnapshot object) {
+		Color objectColor = object.getColor();
+		if (object.isBeam()) { // Beams are rendered as solid colour without shadows (although a face in front of it with some transparency may affect its colour)
+			return objectColor.getRGB();
+		} else {
+			// Only the z component of the normalised normal is needed: the cross product of two edges divided by its length
+			double ax = verts[i1] - verts[i0];
+			double ay = verts[i1 + 1] - verts[i0 + 1];
+			double az = verts[i1 + 2] - verts[i0 + 2];
+			double bx = verts[i2] - verts[i0];
+			double by = verts[i2 + 1] - verts[i0 + 1];
+			double bz = verts[i2 + 2] - verts[i0 + 2];
+			double nx = ay * bz - az * by;
+			double ny = az * bx - ax * bz;
+			double nz = ax * by - ay * bx;
+			double normalZ = nz / Math.sqrt(nx * nx + ny * ny + nz * nz);
+			
+			double brightFactor; // A value between 0.2 and 1 where 0 (if zero were allowed) would make the face completely black and 1 would make the face the same colour as the object
+			if (objectColor.getAlpha() < 255) {
+				if (normalZ < 0) { // If the face is pointing towards the camera
+					brightFactor = 1 - 262144 * (1 + normalZ); // 262144 is a value obtained through experimentation and is a power of 2, reducing computation time
+					if (brightFactor < 0.5) {
+						brightFactor = 0.5;
+					}
+				} else {
+					brightFactor = -(normalZ - 1);
+					if (brightFactor < 0.2) {
+						brightFactor = 0.2;
+					}
+				}
+			} else {
+				brightFactor = 1 - 524288 * (1 + normalZ); // 524288 is another experimental power of 2
+				if (brightFactor < 0.7) {
+					brightFactor = ((brightFactor - 0.7) / 2) + 0.7;
+					if (brightFactor < 0.6) {
+						brightFactor = ((brightFactor - 0.6) / 2) + 0.6;
+						if (brightFactor < 0.5) {
+							brightFactor = ((brightFactor - 0.5) / 2) + 0.5;
+						}
+					}
+				}
+				if (brightFactor < 0.4) {
+					brightFactor = 0.4;
+				}
+			}
+			int red = (int)(Math.round(objectColor.getRed() * brightFactor));
+			int green = (int)(Math.round(objectColor.getGreen() * brightFactor));
+			int blue = (int)(Math.round(objectColor.getBlue() * brightFactor));
+			return (objectColor.getAlpha() << 24) | (red << 16) | (green << 8) | blue;
+		}
+	}
+	
+	/**
+	 * Resets the frame buffer, depth buffer and object buffer in preparation for re-rendering
+	 */
+	private void clearBuffers() {
+		for (int i = 0; i < this.frameWidth; i++) {
+			for (int j = 0; j < this.frameHeight; j++) {
+				this.frameBuffer[i][j] = this.bgColor;
+				this.depthBuffer[i][j] = 1; // Clip space points have a depth mapped between 0 (near clip) and 1 (far clip)
+				this.objectBuffer[i][j] = -1; // No object
+			}
+		}
+	}
+	
+	/**
+	 * Empties the bounding rectangle of every object, growing the arrays of bounds if there are more objects than before
+	 * @param numOfObjects the number of IDs in use in the scene being rendered
+	 */
+	private void clearBounds(int numOfObjects) {
+		if (boundsMinX.length < numOfObjects) {
+			boundsMinX = new int[numOfObjects];
+			boundsMinY = new int[numOfObjects];
+			boundsMaxX = new int[numOfObjects];
+			boundsMaxY = new int[numOfObjects];
+		}
+		for (int i = 0; i < numOfObjects; i++) {
+			boundsMinX[i] = Integer.MAX_VALUE;
+			boundsMinY[i] = Integer.MAX_VALUE;
+			boundsMaxX[i] = Integer.MIN_VALUE;
+			boundsMaxY[i] = Integer.MIN_VALUE;
+		}
+	}
+	
+	/**
+	 * Returns the rectangle of pixels of the finished frame that contains every pixel of an object, found from the samples written by the object while it was rasterised
+	 * @param ID the ID of the object
+	 * @return the minimum x, minimum y, maximum x and maximum y co-ordinates (inclusive) of the rectangle; null if the object wasn't rasterised in this frame
+	 */
+	private int[] getPixelBounds(int ID) {
+		if ((ID >= boundsMinX.length) || (boundsMinX[ID] > boundsMaxX[ID])) {
+			return null;
+		} else if (samplesPerPixel > 1) { // Each pixel is made from a square of samples
+			return new int[] {boundsMinX[ID] / samplesPerPixel, boundsMinY[ID] / samplesPerPixel, boundsMaxX[ID] / samplesPerPixel, boundsMaxY[ID] / samplesPerPixel};
+		} else { // Each pixel takes the sample covering its centre, so widen the rectangle by a pixel to include every pixel that could take one of the object's samples
+			int minX = Math.max((int)(Math.floor((double)(boundsMinX[ID]) * outputWidth / frameWidth)) - 1, 0);
+			int minY = Math.max((int)(Math.floor((double)(boundsMinY[ID]) * outputHeight / frameHeight)) - 1, 0);
+			int maxX = Math.min((int)(Math.ceil((double)(boundsMaxX[ID] + 1) * outputWidth / frameWidth)), outputWidth - 1);
+			int maxY = Math.min((int)(Math.ceil((double)(boundsMaxY[ID] + 1) * outputHeight / frameHeight)), outputHeight - 1);
+			return new int[] {minX, minY, maxX, maxY};
+		}
+	}
+	
+	/**
+	 * Sets up clipMatrix to map camera space to clip space (when using perspective projection) for the given zoomX, zoomdY, NEAR_CLIP and FAR_CLIP
+	 */
+	private void calcClipMatrix() {
+		clipMatrix.setElement(0, 0, zoomX);
+		clipMatrix.setElement(1, 1, zoomY);
+		double element = FAR_CLIP / (FAR_CLIP - NEAR_CLIP);
+		clipMatrix.setElement(2, 2, element);
+		clipMatrix.setElement(3, 2, -NEAR_CLIP * element);
+		clipMatrix.setElement(2, 3, 1);
+	}
+	
+	/**
+	 * From information in extended screen space (screen space with depth), draws the visible parts of a face into the buffers
+	 * @param point0 the first vertex (index 0) of the face in screen space
+	 * @param point1 the second vertex (index 1) of the face in screen space
+	 * @param point2 the third vertex (index 2) of the face in screen space
+	 * @param normal the normalised normal to the face in extended screen space
+	 * @param d the value in the expression p.n = d where p is a point on the face and n is the normalised normal to the face (all in extended screen space)
+	 * @param faceColor the colour to render the face
+	 * @param objectID the ID of the object to which this face belongs (the index of the object in objectList)
+	 */
+	private void rasterise(Vector point0, Vector point1, Vector point2, Vector normal, double d, int faceColor, int objectID) {		
+		// Find the depth of the closest point to save on depth calculations later
+		double minDepth = point0.getElement(2);
+		if (point1.getElement(2) < minDepth) {
+			minDepth = point1.getElement(2);
+		}
+		if (point2.getElement(2) < minDepth) {
+			minDepth = point2.getElement(2);
+		}
+		Edge2D edge0 = new Edge2D(point0.getElement(0), point0.getElement(1), point1.getElement(0), point1.getElement(1));
+		Edge2D edge1 = new Edge2D(point1.getElement(0), point1.getElement(1), point2.getElement(0), point2.getElement(1));
+		Edge2D edge2 = new Edge2D(point2.getElement(0), point2.getElement(1), point0.getElement(0), point0.getElement(1));
+		// Find the tallest if the three edges
+		Edge2D tallEdge = edge0;
+		Edge2D shortEdge0 = edge1;
+		Edge2D shortEdge1 = edge2;
+		if (edge1.getHeight() > tallEdge.getHeight()) {
+			tallEdge = edge1;
+			shortEdge0 = edge0;
+		}
+		if (edge2.getHeight() > tallEdge.getHeight()) {
+			tallEdge = edge2;
+			shortEdge0 = edge0;
+			shortEdge1 = edge1;
+		}
+		if (tallEdge.getY0() != shortEdge0.getY0()) { // shortEdge0 should share the lowest point with tallEdge (lowest in terms of y-value, not position on the screen)
+			Edge2D temp = shortEdge0;
+			shortEdge0 = shortEdge1;
+			shortEdge1 = temp;
+		}
+		// Fill in the pixels with centres contained by the precise triangle where the triangle is in front of anything rendered so far
+		int initialY = (int)(Math.round(tallEdge.getY0()));
+		if (initialY < 0) {
+			initialY = 0;
+		}
+		int finalY = (int)(Math.round(shortEdge0.getY1()));
+		if (finalY >= frameHeight) {
+			finalY = frameHeight - 1;
+		}
+		double dxTall = (tallEdge.getX1() - tallEdge.getX0()) / tallEdge.getHeight(); // Increase in x for the tallest edge when y increases by 1
+		double dxShort = (shortEdge0.getX1() - shortEdge0.getX0()) / shortEdge0.getHeight(); // Increase in x for shortEdge0 when y increases by 1
+		double ySkip = initialY - tallEdge.getY0(); // The signed change in y from the lowest point of the face to the first pixel with centre inside the triangle
+		double xTall = (ySkip + 0.5) * dxTall + tallEdge.getX0(); // The precise x co-ordinate of the tallest edge for the y co-ordinate of the lowest row of pixels in the triangle
+		double xShort = (ySkip + 0.5) * dxShort + shortEdge0.getX0(); // The precise x co-ordinate of shortEdge0 for the y co-ordinate of the lowest row of pixels in the triangle
+		rasteriseHalfFace(initialY, finalY, xShort, xTall, dxShort, dxTall, minDepth, normal, d, faceColor, objectID); // Draw the rows of pixels spanned by shortEdge0
+		
+		xTall = xTall + dxTall * (finalY - initialY);
+		initialY = finalY;
+		finalY = (int)(Math.round(shortEdge1.getY1()));
+		if (finalY >= frameHeight) {
+			finalY = frameHeight - 1;
+		}
+		dxShort = (shortEdge1.getX1() - shortEdge1.getX0()) / shortEdge1.getHeight();
+		ySkip = initialY - shortEdge1.getY0();
+		xShort = (ySkip + 0.5) * dxShort + shortEdge1.getX0();
+		rasteriseHalfFace(initialY, finalY, xShort, xTall, dxShort, dxTall, minDepth, normal, d, faceColor, objectID); // Draw the rows of pixels spanned by shortEdge1
+	}
+	
+	/**
+	 * Sets pixels in the buffers where the face is visible for initialY <= y < finalY
+	 * @param initialY the first row of pixels (lowest y value)
+	 * @param finalY the row of pixels after the last (highest y value)
+	 * @param xShort the x co-ordinate of the shorter edge when the y co-ordinate is initialY
+	 * @param xTall the x co-ordinate of the taller edge when the y co-ordinate is initailY
+	 * @param dxShort the change in x of the shorter edge when y is increased by 1
+	 * @param dxTall the change in x of the taller edge when y is increased by 1
+	 * @param minDepth the lowest depth value of any point on the face in extended screen space
+	 * @param normal the normalised normal to the face in extended screen space
+	 * @param d the value in the expression p.n = d where p is a point on the face and n is the normalised normal to the face (all in extended screen space)
+	 * @param faceColor the colour to render the face
+	 * @param objectID the ID of the object to which the face belongs (the index of the object in objectList)
+	 */
+	private void rasteriseHalfFace(int initialY, int finalY, double xShort, double xTall, double dxShort, double dxTall, double minDepth, Vector normal, double d, int faceColor, int objectID) {
+		for (int pixelY = initialY; pixelY < finalY; pixelY++) {
+			int roundedxShort = (int)(Math.round(xShort));
+			int roundedxTall = (int)(Math.round(xTall));
+			if (roundedxTall <= roundedxShort) {
+				rasteriseFaceRow(roundedxTall, roundedxShort, pixelY, minDepth, normal, d, faceColor, objectID);
+			} else {
+				rasteriseFaceRow(roundedxShort, roundedxTall, pixelY, minDepth, normal, d, faceColor, objectID);
+			}
+			xTall += dxTall;
+			xShort += dxShort;
+		}
+	}
+	
+	/**
+	 * Sets pixels in the buffers where the face is visible for startX <= x < endX and y co-ordinate pixelY. This is package-private rather than private so that the allocation tests can run it on its own
+	 * @param startX the x co-ordinate of the first pixel on this row contained by the triangle
+	 * @param endX the x co-ordinate of the pixel after the last on this row contained by the triangle
+	 * @param pixelY the y co-ordinate of the row of pixels being set
+	 * @param minDepth the lowest depth value of any point on the face in extended screen space
+	 * @param normal the normalised normal to the face in extended screen space
+	 * @param d the value in the expression p.n = d where p is a point on the face and n is the normalised normal to the face (all in extended screen space)
+	 * @param faceColor the colour to render the face
+	 * @param objectID the ID of the object to which the face belongs (the index of the object in objectList)
+	 */
+	void rasteriseFaceRow(int startX, int endX, int pixelY, double minDepth, Vector normal, double d, int faceColor, int objectID) {
+		// Only walk over the pixels of the row that are on the screen
+		if (startX < 0) {
+			startX = 0;
+		}
+		if (endX > frameWidth) {
+			endX = frameWidth;
+		}
+		int firstSet = -1; // The first and last pixels on this row that the face was drawn to, for the object's bounding rectangle
+		int lastSet = -1;
+		int numOfSet = 0;
+		for (int pixelX = startX; pixelX < endX; pixelX++) {
+			if ((pixelX >= 0) && (pixelX < frameWidth)) {
+				if ((pixelY >= 0) && (pixelY < frameHeight)) {
+					if (minDepth < depthBuffer[pixelX][pixelY]) { // If minDepth is too large then the depth at this point will be
+						// Find the 3rd element of p by rearranging p.n = d to p[2] = (d - n[0] * p[0] - n[1] * p[1]) / n[2]
+						double depth = (d - normal.getElement(0) * (pixelX + 0.5) - normal.getElement(1) * (pixelY + 0.5)) / normal.getElement(2); // 0.5 is added to pixelX and pixelY to get the depth at the centre of the pixel
+						if (depth < 0) { // Don't render in front of the near clip plane (or behind the camera for orthographic projection)
+							continue;
+						}
+						if (depth < depthBuffer[pixelX][pixelY]) { // If this face is closer than anything else at this point so far, alter the buffers
+							setPixel(pixelX, pixelY, depth, faceColor, objectID);
+							numOfSet++;
+							if (firstSet == -1) {
+								firstSet = pixelX;
+							}
+							lastSet = pixelX;
+						}
+					}
+				}
+			}
+		}
+		if (firstSet != -1) { // Grow the object's bounding rectangle and count the pixels shaded once per row rather than once per pixel
+			pixelsShaded += numOfSet;
+			if (firstSet < boundsMinX[objectID]) {
+				boundsMinX[objectID] = firstSet;
+			}
+			if (lastSet > boundsMaxX[objectID]) {
+				boundsMaxX[objectID] = lastSet;
+			}
+			if (pixelY < boundsMinY[objectID]) {
+				boundsMinY[objectID] = pixelY;
+			}
+			if (pixelY > boundsMaxY[objectID]) {
+				boundsMaxY[objectID] = pixelY;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Changes the frame buffer, depth buffer and object buffer for a single pixel. Semi-transparent colours are blended with the previous colour of the pixel using integer arithmetic so that no objects are created for each pixel
+	 * @param x the x co-ordinate of the pixel to change
+	 * @param y the y co-ordinate of the pixel to change
+	 * @param depth the depth of the current face at the centre of this pixel
+	 * @param color the rendered colour of the face as a packed ARGB value
+	 * @param objectID the ID of the object this face belongs to (the index of the object in objectList)
+	 */
+	private void setPixel(int x, int y, double depth, int color, int objectID) {
+		int alpha = color >>> 24;
+		if (alpha != 255) { // Combine the previous colour of this pixel with the new semi-transparent colour
+			int transparency = 255 - alpha;
+			int previous = frameBuffer[x][y];
+			int red = divideBy255(((previous >> 16) & 255) * transparency + ((color >> 16) & 255) * alpha);
+			int green = divideBy255(((previous >> 8) & 255) * transparency + ((color >> 8) & 255) * alpha);
+			int blue = divideBy255((previous & 255) * transparency + (color & 255) * alpha);
+			color = (255 << 24) | (red << 16) | (green << 8) | blue; // The produced colour will be opaque
+		}
+		this.frameBuffer[x][y] = color;
+		this.depthBuffer[x][y] = depth;
+		this.objectBuffer[x][y] = objectID;
+	}
+	
+	/**
+	 * Divides a product of two 8-bit values by 255 and rounds to the nearest whole number using only additions and shifts
+	 * @param value a value between 0 and 255 * 255 inclusive
+	 * @return value / 255 rounded to the nearest whole number
+	 */
+	private static int divideBy255(int value) {
+		value += 128;
+		return (value + (value >> 8)) >> 8;
+	}
+}
@@ -0,0 +1,96 @@
+package RefractionSim;
+
+/**
+ * Class for copies of everything in the scene that is needed to render a frame. A snapshot is taken on the event dispatch thread and is never changed afterwards, so it can be rendered on another thread
+ * @author William Platt
+ *
+ */
+public class SceneSnapshot {
+	
+	private ObjectSnapshot[] objects; // Index is equal to the object's ID; null for the camera, deleted objects and objects without a mesh
+	private Vector cameraOrigin = new Vector(3);
+	private Matrix cameraOrientation = new Matrix(3, 3);
+	private boolean orthographic;
+	private boolean anglesInDegrees;
+	private int selectedObjID;
+	
+	/**
+	 * Constructor for the SceneSnapshot class which copies the current state of the scene
+	 * @param objectList the list of all objects in the scene where an object's index is equal to its ID and index 0 is the camera
+	 * @param objectListLength the number of elements of objectList in use
+	 * @param orthographic whether orthographic projection is being used
+	 * @param anglesInDegrees whether angles are displayed in degrees rather than radians
+	 * @param selectedObjID the ID of the selected object (-1 if there isn't one)
+	 */
+	public SceneSnapshot(Object3D[] objectList, int objectListLength, boolean orthographic, boolean anglesInDegrees, int selectedObjID) {
+		this.objects = new ObjectSnapshot[objectListLength];
+		for (int i = 1; i < objectListLength; i++) {
+			if ((objectList[i] != null) && (objectList[i].getMesh() != null)) {
+				objects[i] = new ObjectSnapshot(objectList[i]);
+			}
+		}
+		this.cameraOrigin.setElements(objectList[0].getOrigin());
+		this.cameraOrientation.setElements(objectList[0].getOrientation());
+		this.orthographic = orthographic;
+		this.anglesInDegrees = anglesInDegrees;
+		this.selectedObjID = selectedObjID;
+	}
+	
+	/**
+	 * Returns the number of IDs in use when the snapshot was taken, which is one more than the highest ID of an object
+	 * @return the length of the list of objects
+	 */
+	public int getNumOfObjects() {
+		return objects.length;
+	}
+	
+	/**
+	 * Returns the copy of the object with a particular ID
+	 * @param ID the ID of the object
+	 * @return the copy of the object; null if the object had been deleted or has nothing to render
+	 */
+	public ObjectSnapshot getObject(int ID) {
+		return objects[ID];
+	}
+	
+	/**
+	 * Returns the position of the camera in world space
+	 * @return the location of the camera's origin
+	 */
+	public Vector getCameraOrigin() {
+		return cameraOrigin;
+	}
+	
+	/**
+	 * Returns the orientation of the camera relative to world space
+	 * @return the 3 by 3 matrix representing the camera's orientation
+	 */
+	public Matrix getCameraOrientation() {
+		return cameraOrientation;
+	}
+	
+	/**
+	 * Returns true if orthographic projection was being used
+	 * @return whether orthographic projection is being used
+	 */
+	public boolean isOrthographic() {
+		return orthographic;
+	}
+	
+	/**
+	 * Returns true if angles are to be displayed in degrees rather than radians
+	 * @return whether angles are displayed in degrees
+	 */
+	public boolean areAnglesInDegrees() {
+		return anglesInDegrees;
+	}
+	
+	/**
+	 * Returns the ID of the selected object
+	 * @return the ID of the selected object; -1 if there is no selected object
+	 */
+	public int getSelectedObjID() {
+		return selectedObjID;
+	}
+	
+}
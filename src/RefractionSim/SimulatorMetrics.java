@@ -0,0 +1,278 @@
+package RefractionSim;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class for collecting counters and histograms about the running simulator so that its health can be monitored remotely over JMX. There is one set of metrics for the whole program, which is updated by the renderer, beams, objects and label layer as they work and can be read from any thread
+ * @author William Platt
+ *
+ */
+public class SimulatorMetrics implements SimulatorMetricsMBean {
+	
+	public static final String OBJECT_NAME = "RefractionSim:type=Metrics";
+	private static final int RECENT_FRAMES = 1000; // Number of frames that the percentiles are calculated from
+	private static final double[] HISTOGRAM_BOUNDS = {5, 10, 17, 33, 50, 100, 250, 500, 1000}; // Upper bounds of the buckets in milliseconds; 17 and 33 are the lengths of frames at 60 and 30 frames per second
+	private static final SimulatorMetrics METRICS = new SimulatorMetrics(); // Must come after the constants that the constructor uses
+	private final Object frameLock = new Object(); // Held while the frame times are being read or written
+	private long framesRendered = 0;
+	private long[] recentFrameTimes = new long[RECENT_FRAMES]; // Render times in nanoseconds of the latest frames, used as a circular buffer
+	private int nextFrameIndex = 0; // Where the next frame's time is stored in recentFrameTimes
+	private long maxFrameTime = 0;
+	private long[] histogram = new long[HISTOGRAM_BOUNDS.length + 1];
+	private volatile long bufferBytes = 0;
+	// Counters which are updated far more often than frames are rendered, so they don't take a lock
+	private final AtomicLong beamRecalculations = new AtomicLong();
+	private final AtomicLong raysTraced = new AtomicLong();
+	private final AtomicLong worldVertsHits = new AtomicLong();
+	private final AtomicLong worldVertsMisses = new AtomicLong();
+	private final AtomicLong angleTextHits = new AtomicLong();
+	private final AtomicLong angleTextMisses = new AtomicLong();
+	
+	/**
+	 * Constructor for the SimulatorMetrics class, which is private because there is only one set of metrics
+	 */
+	private SimulatorMetrics() {
+	}
+	
+	/**
+	 * Returns the metrics of the simulator
+	 * @return the only set of metrics
+	 */
+	public static SimulatorMetrics getMetrics() {
+		return METRICS;
+	}
+	
+	/**
+	 * Registers the metrics with the platform MBean server under OBJECT_NAME so that JMX tools can read them. Registering more than once has no effect, and the simulator carries on without the metrics being published if registering fails
+	 */
+	public static void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(METRICS, new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) { // Already registered
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Called by the renderer when it has finished a frame
+	 * @param frameTime the time taken to render the frame in nanoseconds
+	 * @param bufferBytes the size of the buffers used to render the frame in bytes
+	 */
+	public void frameRendered(long frameTime, long bufferBytes) {
+		double frameTimeMs = frameTime / 1000000.0;
+		int bucket = 0;
+		while ((bucket < HISTOGRAM_BOUNDS.length) && (frameTimeMs > HISTOGRAM_BOUNDS[bucket])) {
+			bucket++;
+		}
+		synchronized (frameLock) {
+			framesRendered++;
+			recentFrameTimes[nextFrameIndex] = frameTime;
+			nextFrameIndex = (nextFrameIndex + 1) % RECENT_FRAMES;
+			if (frameTime > maxFrameTime) {
+				maxFrameTime = frameTime;
+			}
+			histogram[bucket]++;
+		}
+		this.bufferBytes = bufferBytes;
+	}
+	
+	/**
+	 * Called by a beam when its path has been recalculated
+	 * @param rays the number of rays that the beam was traced as
+	 */
+	public void beamRecalculated(int rays) {
+		beamRecalculations.incrementAndGet();
+		raysTraced.addAndGet(rays);
+	}
+	
+	/**
+	 * Called by an object when the world space vertices of its bounding box are requested
+	 * @param hit true if the cached vertices were up to date; false if they had to be recalculated
+	 */
+	public void worldVertsRequested(boolean hit) {
+		if (hit) {
+			worldVertsHits.incrementAndGet();
+		} else {
+			worldVertsMisses.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Called by the label layer when the text for an angle is needed
+	 * @param hit true if the cached text could be used; false if it had to be formatted
+	 */
+	public void angleTextRequested(boolean hit) {
+		if (hit) {
+			angleTextHits.incrementAndGet();
+		} else {
+			angleTextMisses.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Returns the number of frames rendered since the metrics were last reset
+	 * @return the number of frames rendered
+	 */
+	public long getFramesRendered() {
+		synchronized (frameLock) {
+			return framesRendered;
+		}
+	}
+	
+	/**
+	 * Returns the median time taken to render recent frames
+	 * @return the 50th percentile of the render times of recent frames in milliseconds; 0 if no frames have been rendered
+	 */
+	public double getFrameTime50thPercentile() {
+		return getFrameTimePercentile(50);
+	}
+	
+	/**
+	 * Returns the time that 90% of recent frames were rendered within
+	 * @return the 90th percentile of the render times of recent frames in milliseconds; 0 if no frames have been rendered
+	 */
+	public double getFrameTime90thPercentile() {
+		return getFrameTimePercentile(90);
+	}
+	
+	/**
+	 * Returns the time that 99% of recent frames were rendered within
+	 * @return the 99th percentile of the render times of recent frames in milliseconds; 0 if no frames have been rendered
+	 */
+	public double getFrameTime99thPercentile() {
+		return getFrameTimePercentile(99);
+	}
+	
+	/**
+	 * Returns a percentile of the render times of the latest RECENT_FRAMES frames using the nearest rank
+	 * @param percentile the percentage of frames that must have been rendered within the returned time
+	 * @return the render time in milliseconds; 0 if no frames have been rendered
+	 */
+	private double getFrameTimePercentile(double percentile) {
+		long[] times;
+		synchronized (frameLock) {
+			times = Arrays.copyOf(recentFrameTimes, (int)(Math.min(framesRendered, RECENT_FRAMES))); // Until the buffer has filled up, only the start of it has been written
+		}
+		if (times.length == 0) {
+			return 0;
+		} else {
+			Arrays.sort(times);
+			int rank = (int)(Math.ceil(percentile / 100 * times.length)); // 1-based
+			return times[Math.max(rank, 1) - 1] / 1000000.0;
+		}
+	}
+	
+	/**
+	 * Returns the longest time taken to render a frame since the metrics were last reset
+	 * @return the maximum render time in milliseconds
+	 */
+	public double getMaxFrameTime() {
+		synchronized (frameLock) {
+			return maxFrameTime / 1000000.0;
+		}
+	}
+	
+	/**
+	 * Returns the upper bounds of the buckets of the frame time histogram
+	 * @return the upper bound of each bucket in milliseconds except the last, which has no upper bound
+	 */
+	public double[] getFrameTimeHistogramBounds() {
+		return HISTOGRAM_BOUNDS.clone();
+	}
+	
+	/**
+	 * Returns the number of frames whose render time fell in each bucket since the metrics were last reset
+	 * @return the number of frames in each bucket, in the same order as getFrameTimeHistogramBounds() with one extra bucket for longer frames at the end
+	 */
+	public long[] getFrameTimeHistogram() {
+		synchronized (frameLock) {
+			return histogram.clone();
+		}
+	}
+	
+	/**
+	 * Returns the number of times a beam's path has been recalculated since the metrics were last reset
+	 * @return the number of beam recalculations
+	 */
+	public long getBeamRecalculations() {
+		return beamRecalculations.get();
+	}
+	
+	/**
+	 * Returns the number of rays traced in beam recalculations since the metrics were last reset, where each part of a beam between two surfaces is a ray
+	 * @return the number of rays traced
+	 */
+	public long getRaysTraced() {
+		return raysTraced.get();
+	}
+	
+	/**
+	 * Returns the proportion of requests for the world space vertices of an object's bounding box that were answered from the cache since the metrics were last reset
+	 * @return the hit rate between 0 and 1; 0 if there have been no requests
+	 */
+	public double getWorldVertsCacheHitRate() {
+		return hitRate(worldVertsHits.get(), worldVertsMisses.get());
+	}
+	
+	/**
+	 * Returns the proportion of angles that were written using text from the cache since the metrics were last reset
+	 * @return the hit rate between 0 and 1; 0 if no angles have been written
+	 */
+	public double getAngleTextCacheHitRate() {
+		return hitRate(angleTextHits.get(), angleTextMisses.get());
+	}
+	
+	/**
+	 * Calculates the proportion of requests to a cache that were hits
+	 * @param hits the number of requests answered from the cache
+	 * @param misses the number of requests that weren't answered from the cache
+	 * @return the hit rate between 0 and 1; 0 if there have been no requests
+	 */
+	private static double hitRate(long hits, long misses) {
+		if (hits + misses == 0) {
+			return 0;
+		} else {
+			return (double)(hits) / (hits + misses);
+		}
+	}
+	
+	/**
+	 * Returns the approximate amount of memory taken by the buffers of the renderer and frame used for the latest frame
+	 * @return the size of the buffers in bytes, not counting array headers
+	 */
+	public long getBufferBytes() {
+		return bufferBytes;
+	}
+	
+	/**
+	 * Returns the amount of memory currently used by the heap, including garbage that hasn't been collected yet
+	 * @return the heap usage in bytes
+	 */
+	public long getHeapUsed() {
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+	
+	/**
+	 * Sets every counter and histogram back to zero
+	 */
+	public void reset() {
+		synchronized (frameLock) {
+			framesRendered = 0;
+			nextFrameIndex = 0;
+			maxFrameTime = 0;
+			Arrays.fill(histogram, 0);
+		}
+		beamRecalculations.set(0);
+		raysTraced.set(0);
+		worldVertsHits.set(0);
+		worldVertsMisses.set(0);
+		angleTextHits.set(0);
+		angleTextMisses.set(0);
+	}
+	
+}
@@ -0,0 +1,93 @@
+package RefractionSim;
+
+/**
+ * Interface for the management interface of the simulator's metrics, which can be read with JMX tools such as JConsole under the name "RefractionSim:type=Metrics". Times are in milliseconds
+ * @author William Platt
+ *
+ */
+public interface SimulatorMetricsMBean {
+	
+	/**
+	 * Returns the number of frames rendered since the metrics were last reset
+	 * @return the number of frames rendered
+	 */
+	long getFramesRendered();
+	
+	/**
+	 * Returns the median time taken to render recent frames
+	 * @return the 50th percentile of the render times of recent frames in milliseconds; 0 if no frames have been rendered
+	 */
+	double getFrameTime50thPercentile();
+	
+	/**
+	 * Returns the time that 90% of recent frames were rendered within
+	 * @return the 90th percentile of the render times of recent frames in milliseconds; 0 if no frames have been rendered
+	 */
+	double getFrameTime90thPercentile();
+	
+	/**
+	 * Returns the time that 99% of recent frames were rendered within
+	 * @return the 99th percentile of the render times of recent frames in milliseconds; 0 if no frames have been rendered
+	 */
+	double getFrameTime99thPercentile();
+	
+	/**
+	 * Returns the longest time taken to render a frame since the metrics were last reset
+	 * @return the maximum render time in milliseconds
+	 */
+	double getMaxFrameTime();
+	
+	/**
+	 * Returns the upper bounds of the buckets of the frame time histogram
+	 * @return the upper bound of each bucket in milliseconds except the last, which has no upper bound
+	 */
+	double[] getFrameTimeHistogramBounds();
+	
+	/**
+	 * Returns the number of frames whose render time fell in each bucket since the metrics were last reset
+	 * @return the number of frames in each bucket, in the same order as getFrameTimeHistogramBounds() with one extra bucket for longer frames at the end
+	 */
+	long[] getFrameTimeHistogram();
+	
+	/**
+	 * Returns the number of times a beam's path has been recalculated since the metrics were last reset
+	 * @return the number of beam recalculations
+	 */
+	long getBeamRecalculations();
+	
+	/**
+	 * Returns the number of rays traced in beam recalculations since the metrics were last reset, where each part of a beam between two surfaces is a ray
+	 * @return the number of rays traced
+	 */
+	long getRaysTraced();
+	
+	/**
+	 * Returns the proportion of requests for the world space vertices of an object's bounding box that were answered from the cache since the metrics were last reset
+	 * @return the hit rate between 0 and 1; 0 if there have been no requests
+	 */
+	double getWorldVertsCacheHitRate();
+	
+	/**
+	 * Returns the proportion of angles that were written using text from the cache since the metrics were last reset
+	 * @return the hit rate between 0 and 1; 0 if no angles have been written
+	 */
+	double getAngleTextCacheHitRate();
+	
+	/**
+	 * Returns the approximate amount of memory taken by the buffers of the renderer and frame used for the latest frame
+	 * @return the size of the buffers in bytes, not counting array headers
+	 */
+	long getBufferBytes();
+	
+	/**
+	 * Returns the amount of memory currently used by the heap, including garbage that hasn't been collected yet
+	 * @return the heap usage in bytes
+	 */
+	long getHeapUsed();
+	
+	/**
+	 * Sets every counter and histogram back to zero
+	 */
+	void reset();
+	
+}
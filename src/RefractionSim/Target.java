@@ -23,6 +23,19 @@ public class Target extends Object3D {
 		this.materialID = materialID; // Store the index that identifies the material of the target
 	}
 	
+	/**
+	 * Constructor for the Target class for shapes that aren't one of the primitive geometries
+	 * @param mesh the geometry of the target object
+	 * @param shape the name of the shape
+	 * @param color the overall colour of the object including transparency
+	 * @param materialID the index of the material of the object in the viewport's materials list
+	 */
+	public Target(Mesh mesh, String shape, Color color, int materialID) {
+		super(mesh, color);
+		this.shape = shape;
+		this.materialID = materialID;
+	}
+	
 	/**
 	 * Returns the index of the target's material in the viewport's list of materials
 	 * @return the index of the target's material
@@ -377,11 +377,62 @@ public class UIController {
 			
 		});
 		viewMenu.add(radiansCheckBox);
+		JCheckBoxMenuItem overlayCheckBox = new JCheckBoxMenuItem("Performance overlay");
+		overlayCheckBox.setMnemonic(KeyEvent.VK_O); // Shortcut is 'O'
+		overlayCheckBox.setSelected(viewport.isPerformanceOverlayVisible());
+		overlayCheckBox.addActionListener(new ActionListener() {
+			
+			/**
+			 * Called when the performance overlay checkbox/menu item is clicked (or selected using the keyboard)
+			 * @param event contains details of the action that triggered this event
+			 */
+			public void actionPerformed(ActionEvent event) {
+				viewport.togglePerformanceOverlay();
+			}
+			
+		});
+		viewMenu.add(overlayCheckBox);
 		
 		viewMenu.add(getCameraPositionsMenu()); // Add a submenu
+		viewMenu.add(getAntiAliasingMenu());
 		return viewMenu;
 	}
 	
+	/**
+	 * Generates and returns the menu of anti-aliasing levels which is to be a submenu of the View menu. The level applies to still frames and saved images; frames rendered while the user is dragging or scrolling are never anti-aliased so that they keep up with the input
+	 * @return the menu of anti-aliasing levels
+	 */
+	private JMenu getAntiAliasingMenu() {
+		JMenu antiAliasingMenu = new JMenu("Anti-aliasing");
+		antiAliasingMenu.setMnemonic(KeyEvent.VK_N); // Shortcut is 'N'
+		ButtonGroup antiAliasingRadioButtons = new ButtonGroup();
+		final RenderScheduler scheduler = viewport.getRenderScheduler();
+		ActionListener antiAliasingListener = new ActionListener() { // Adapter class
+			
+			/**
+			 * Called when a radio button/menu item in the Anti-aliasing menu is clicked (or selected using the keyboard)
+			 * @param event contains details of the action that triggered this event
+			 */
+			public void actionPerformed(ActionEvent event) {
+				JRadioButtonMenuItem source = (JRadioButtonMenuItem)(event.getSource());
+				scheduler.setStillRenderScale(Integer.parseInt(source.getActionCommand())); // Each menu item has a string with the number of samples along each axis per pixel
+			}
+			
+		};
+		for (int samples = 1; samples <= 4; samples++) {
+			String label = (samples == 1) ? "Off" : (samples + "x" + samples + " supersampling");
+			JRadioButtonMenuItem antiAliasingMenuItem = new JRadioButtonMenuItem(label);
+			antiAliasingMenuItem.setActionCommand(Integer.toString(samples));
+			if (scheduler.getStillRenderScale() == samples) {
+				antiAliasingMenuItem.setSelected(true); // Select the menu item matching the current level
+			}
+			antiAliasingMenuItem.addActionListener(antiAliasingListener);
+			antiAliasingRadioButtons.add(antiAliasingMenuItem);
+			antiAliasingMenu.add(antiAliasingMenuItem);
+		}
+		return antiAliasingMenu;
+	}
+	
 	/**
 	 * Generates and returns the menu of preset camera positions/orientations which is to be a submenu of the View menu
 	 * @return the menu of camera positions/orientations
@@ -0,0 +1,223 @@
+package RefractionSim;
+
+/**
+ * Class for 3-D vectors, which are used for nearly all of the geometry of the simulator. Unlike Vector, a Vec3 is always 3-D, so there are no size checks, and its operations change the vector they are called on (or store their result in a vector passed to them) rather than creating a new vector, so that points and directions can be reused in loops without allocating
+ * @author William Platt
+ *
+ */
+public class Vec3 {
+	
+	private double x;
+	private double y;
+	private double z;
+	
+	/**
+	 * Constructor for the Vec3 class which sets all elements to zero
+	 */
+	public Vec3() {
+	}
+	
+	/**
+	 * Constructor for the Vec3 class
+	 * @param x the x co-ordinate (element 0)
+	 * @param y the y co-ordinate (element 1)
+	 * @param z the z co-ordinate (element 2)
+	 */
+	public Vec3(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	/**
+	 * Constructor for the Vec3 class which copies another vector
+	 * @param toCopy the vector to copy
+	 */
+	public Vec3(Vec3 toCopy) {
+		this(toCopy.x, toCopy.y, toCopy.z);
+	}
+	
+	/**
+	 * Constructor for the Vec3 class which copies a 3-row Vector
+	 * @param toCopy the vector to copy
+	 * @throws IllegalArgumentException if toCopy doesn't have 3 rows
+	 */
+	public Vec3(Vector toCopy) {
+		set(toCopy);
+	}
+	
+	/**
+	 * Returns the x co-ordinate
+	 * @return element 0 of the vector
+	 */
+	public double getX() {
+		return x;
+	}
+	
+	/**
+	 * Returns the y co-ordinate
+	 * @return element 1 of the vector
+	 */
+	public double getY() {
+		return y;
+	}
+	
+	/**
+	 * Returns the z co-ordinate
+	 * @return element 2 of the vector
+	 */
+	public double getZ() {
+		return z;
+	}
+	
+	/**
+	 * Sets the x co-ordinate
+	 * @param x the new value of element 0
+	 */
+	public void setX(double x) {
+		this.x = x;
+	}
+	
+	/**
+	 * Sets the y co-ordinate
+	 * @param y the new value of element 1
+	 */
+	public void setY(double y) {
+		this.y = y;
+	}
+	
+	/**
+	 * Sets the z co-ordinate
+	 * @param z the new value of element 2
+	 */
+	public void setZ(double z) {
+		this.z = z;
+	}
+	
+	/**
+	 * Sets all elements of the vector
+	 * @param x the new x co-ordinate
+	 * @param y the new y co-ordinate
+	 * @param z the new z co-ordinate
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 set(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	/**
+	 * Copies the elements of another vector into this one
+	 * @param toCopy the vector to copy
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 set(Vec3 toCopy) {
+		return set(toCopy.x, toCopy.y, toCopy.z);
+	}
+	
+	/**
+	 * Copies the elements of a 3-row Vector into this one
+	 * @param toCopy the vector to copy
+	 * @return this vector, so that calls can be chained
+	 * @throws IllegalArgumentException if toCopy doesn't have 3 rows
+	 */
+	public Vec3 set(Vector toCopy) {
+		if (toCopy.getN() != 3) {
+			throw new IllegalArgumentException("Only a 3-row vector can be copied into a Vec3");
+		} else {
+			return set(toCopy.getElement(0), toCopy.getElement(1), toCopy.getElement(2));
+		}
+	}
+	
+	/**
+	 * Adds another vector to this one
+	 * @param toAdd the vector to add
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 add(Vec3 toAdd) {
+		return set(x + toAdd.x, y + toAdd.y, z + toAdd.z);
+	}
+	
+	/**
+	 * Adds a multiple of another vector to this one, such as to move a point along a direction
+	 * @param toAdd the vector to add a multiple of
+	 * @param scaleFactor the multiple of toAdd to add
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 addScaled(Vec3 toAdd, double scaleFactor) {
+		return set(x + toAdd.x * scaleFactor, y + toAdd.y * scaleFactor, z + toAdd.z * scaleFactor);
+	}
+	
+	/**
+	 * Subtracts another vector from this one
+	 * @param toSubtract the vector to subtract
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 subtract(Vec3 toSubtract) {
+		return set(x - toSubtract.x, y - toSubtract.y, z - toSubtract.z);
+	}
+	
+	/**
+	 * Multiplies this vector by a scalar value
+	 * @param scaleFactor the value to multiply each element by
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 scale(double scaleFactor) {
+		return set(x * scaleFactor, y * scaleFactor, z * scaleFactor);
+	}
+	
+	/**
+	 * Returns the dot product of this vector and another
+	 * @param toDot the vector to dot with
+	 * @return the dot product of the two vectors
+	 */
+	public double dot(Vec3 toDot) {
+		return x * toDot.x + y * toDot.y + z * toDot.z;
+	}
+	
+	/**
+	 * Sets this vector to a x b (a crossed with b). a and b may be this vector
+	 * @param a the vector on the left of the cross product
+	 * @param b the vector on the right of the cross product
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 cross(Vec3 a, Vec3 b) {
+		return set(a.y * b.z - a.z * b.y, a.z * b.x - a.x * b.z, a.x * b.y - a.y * b.x);
+	}
+	
+	/**
+	 * Returns the modulus (length) of the vector
+	 * @return the modulus of the vector
+	 */
+	public double modulus() {
+		return Math.sqrt(x * x + y * y + z * z);
+	}
+	
+	/**
+	 * Scales the vector to have modulus 1, leaving it unchanged if it is already normalised to within the same leeway as Vector.isNormalised()
+	 * @return this vector, so that calls can be chained
+	 */
+	public Vec3 normalise() {
+		double modulus = modulus();
+		if ((modulus < 1.00000001) && (modulus > 0.99999999)) {
+			return this;
+		} else {
+			return scale(1 / modulus);
+		}
+	}
+	
+	/**
+	 * Returns a 3-row Vector with the same elements, for code that still uses the general vector class
+	 * @return a new Vector equal to this vector
+	 */
+	public Vector toVector() {
+		Vector result = new Vector(3);
+		result.setElement(0, x);
+		result.setElement(1, y);
+		result.setElement(2, z);
+		return result;
+	}
+	
+}
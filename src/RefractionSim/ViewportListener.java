@@ -7,7 +7,7 @@ import javax.swing.SwingUtilities;
  * @author William Platt
  *
  */
-public class ViewportListener implements MouseListener, MouseMotionListener, MouseWheelListener, KeyListener {
+public class ViewportListener implements MouseListener, MouseMotionListener, MouseWheelListener, KeyListener, ComponentListener {
 	private boolean dragging;
 	private int prevX;
 	private int prevY;
@@ -98,7 +98,15 @@ public class ViewportListener implements MouseListener, MouseMotionListener, Mou
 		}
 	}
 	
-	// Method definitions required by KeyListener, MouseListener and MouseMotionListener
+	/**
+	 * Called when the viewport changes size, such as when the window is resized or maximised, so that the viewport can render frames of the new size
+	 */
+	public void componentResized(ComponentEvent event) {
+		Viewport viewport = (Viewport)(event.getSource());
+		viewport.resized();
+	}
+	
+	// Method definitions required by KeyListener, MouseListener, MouseMotionListener and ComponentListener
 	
 	/**
 	 * Called when a key is pressed; no action is taken
@@ -134,4 +142,25 @@ public class ViewportListener implements MouseListener, MouseMotionListener, Mou
 	public void mouseMoved(MouseEvent event) {
 		
 	}
+	
+	/**
+	 * Called when the viewport is moved within the window
+	 */
+	public void componentMoved(ComponentEvent event) {
+		
+	}
+	
+	/**
+	 * Called when the viewport is made visible
+	 */
+	public void componentShown(ComponentEvent event) {
+		
+	}
+	
+	/**
+	 * Called when the viewport is made invisible
+	 */
+	public void componentHidden(ComponentEvent event) {
+		
+	}
 }
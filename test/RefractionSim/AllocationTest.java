@@ -0,0 +1,133 @@
+package RefractionSim;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Class for tests that check that the hot paths of tracing and rendering don't allocate more memory than they should, so that changes which add allocations to them are noticed. Each path is run on a fixed workload and the bytes allocated by the test's thread are compared to a budget
+ * @author William Platt
+ *
+ */
+public class AllocationTest {
+	
+	private static com.sun.management.ThreadMXBean threads;
+	
+	/**
+	 * Skips the tests if the Java virtual machine can't measure how much memory a thread allocates
+	 */
+	@BeforeClass
+	public static void checkAllocationsMeasurable() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		threads = (com.sun.management.ThreadMXBean)(ManagementFactory.getThreadMXBean());
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+	}
+	
+	/**
+	 * Runs a task a number of times after warming it up and measures how much memory the current thread allocated while doing so
+	 * @param task the task to measure
+	 * @param warmUpRuns the number of times to run the task before measuring, which should be enough for it to be compiled so that the interpreter isn't what is measured
+	 * @param runs the number of times to run the task while measuring
+	 * @return the number of bytes allocated per run
+	 */
+	private static double allocatedBytesPerRun(Runnable task, int warmUpRuns, int runs) {
+		for (int i = 0; i < warmUpRuns; i++) {
+			task.run();
+		}
+		long threadID = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadID);
+		for (int i = 0; i < runs; i++) {
+			task.run();
+		}
+		long after = threads.getThreadAllocatedBytes(threadID);
+		return (double)(after - before) / runs;
+	}
+	
+	/**
+	 * Checks that multiplying a vector by a matrix into an existing vector doesn't allocate
+	 */
+	@Test
+	public void matrixMultiplyIntoVectorDoesNotAllocate() {
+		final Matrix rotation = new Matrix(3, 3);
+		Vector axis = new Vector(3);
+		axis.setElements(new double[] {1, 2, 3});
+		rotation.setToRotation(axis.normalise(), 0.5);
+		final Vector point = new Vector(3);
+		point.setElements(new double[] {4, 5, 6});
+		final Vector result = new Vector(3);
+		double bytes = allocatedBytesPerRun(new Runnable() {
+			
+			/**
+			 * Rotates the point
+			 */
+			public void run() {
+				rotation.multiply(point, result);
+			}
+			
+		}, 20000, 100000);
+		assertTrue("Matrix.multiply(Vector, Vector) allocated " + bytes + " bytes per call", bytes < 1);
+	}
+	
+	/**
+	 * Checks that rasterising a row of a face doesn't allocate
+	 */
+	@Test
+	public void rasteriseFaceRowDoesNotAllocate() {
+		final int width = 640;
+		final int height = 480;
+		OffscreenRenderer scene = new OffscreenRenderer(Color.BLACK);
+		scene.addRayBox(new RayBox(0));
+		scene.updateBeams();
+		final Renderer renderer = new Renderer(width, height, Color.BLACK);
+		renderer.render(scene.getSnapshot(), new RenderedFrame(width, height), 1); // Sets the renderer up for a frame of this size with the scene's objects
+		final Vector normal = new Vector(3); // A face facing the camera at a normalised depth of a half
+		normal.setElements(new double[] {0, 0, 1});
+		final int faceColor = new Color(50, 200, 100, 100).getRGB(); // Semi-transparent, so each pixel is blended
+		double bytes = allocatedBytesPerRun(new Runnable() {
+			
+			private int row = 0;
+			
+			/**
+			 * Rasterises the next row of the frame as part of the target
+			 */
+			public void run() {
+				renderer.rasteriseFaceRow(0, width, row, 0, normal, 0.5, faceColor, 1);
+				row = (row + 1) % height;
+			}
+			
+		}, 20000, 10000);
+		assertTrue("Renderer.rasteriseFaceRow() allocated " + bytes + " bytes per row", bytes < 1);
+	}
+	
+	/**
+	 * Checks that tracing a beam through a detailed target allocates a small amount for each bounce rather than an amount that grows with the number of faces of the target
+	 */
+	@Test
+	public void tracingAllocationDoesNotGrowWithTargetFaces() {
+		final Target target = new Target(new Mesh(128, 127), "SPHERE_128x127", new Color(50, 200, 100, 100), 2); // 32512 faces of glass
+		RayBox rayBox = new RayBox(0.3);
+		Vector offset = new Vector(3);
+		offset.setElements(new double[] {0.2, 0.3, 0});
+		rayBox.setOrigin(rayBox.getOrigin().add(offset)); // Hit the sphere off-centre so that the beam bounces inside it
+		final Beam beam = rayBox.getLightBeam();
+		beam.calculateRays(target, 0);
+		int bounces = beam.getNumOfPoints() - 2;
+		assertTrue("The beam should bounce inside the target", bounces >= 2);
+		double bytes = allocatedBytesPerRun(new Runnable() {
+			
+			/**
+			 * Traces the beam through the target
+			 */
+			public void run() {
+				beam.calculateRays(target, 0);
+			}
+			
+		}, 200, 200);
+		double bytesPerBounce = bytes / bounces;
+		assertTrue("Beam.calculateRays() allocated " + bytesPerBounce + " bytes per bounce", bytesPerBounce < 4096); // Calculating each new direction allocates a few vectors and matrices, but testing each face mustn't allocate
+	}
+	
+}